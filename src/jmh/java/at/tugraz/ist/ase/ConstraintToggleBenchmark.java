@@ -0,0 +1,173 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.IntVar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the strategies to toggle user requirements and constraints of the car model.
+ * <p>
+ * ENVIRONMENT - selectors fixed inside worldPush/worldPop (approach 1 and 3),
+ * POST_UNPOST - post all, solve, unpost all (approach 2),
+ * DELTA - post/unpost only the difference (approach 4).
+ * <p>
+ * The KB size is scaled by posting several copies of the car KB over the same variables,
+ * so that the solution space stays the same. Use {@code -prof gc} for the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConstraintToggleBenchmark {
+
+    public enum Strategy { ENVIRONMENT, POST_UNPOST, DELTA }
+
+    /**
+     * REQUIREMENT - add/remove the user requirement modell = limousine,
+     * RESTRICTIONS - swap between kb + restrictions and kb
+     */
+    public enum Toggle { REQUIREMENT, RESTRICTIONS }
+
+    @Param({"1", "10", "100"})
+    public int kbCopies;
+
+    @Param
+    public Strategy strategy;
+
+    @Param
+    public Toggle toggle;
+
+    /**
+     * 1 - first solution, 10 - N solutions, -1 - all solutions
+     */
+    @Param({"1", "10", "-1"})
+    public int maxSolutions;
+
+    private Model model;
+    private IntVar[] vars;
+    private List<ConstraintWrapper> kb;
+    private List<ConstraintWrapper> allConstraints;
+    private ConstraintWrapper requirement;
+    private SelectorActivation activation;
+    private ConstraintSetManager manager;
+    private boolean flip;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = new Model("Combeenation Car Model");
+        vars = CarModel.createVariables(model);
+
+        kb = new ArrayList<>();
+        List<ConstraintWrapper> restrictions = new ArrayList<>();
+        for (int i = 0; i < kbCopies; i++) {
+            CarModel.createKB_Approach2(model, vars, kb, restrictions);
+        }
+        model.unpost(model.getCstrs());
+        allConstraints = Lists.newArrayList(Iterables.concat(kb, restrictions));
+
+        // the user requirement as an unposted constraint
+        requirement = ConstraintWrapper.builder()
+                .name("modell = limousine")
+                .constraints(List.of(model.arithm(vars[0], "=", 1)))
+                .build();
+
+        model.getSolver().setSearch(Search.inputOrderLBSearch(vars));
+
+        switch (strategy) {
+            case ENVIRONMENT -> activation = new SelectorActivation(model, allConstraints);
+            case DELTA -> manager = new ConstraintSetManager(model);
+        }
+    }
+
+    @Benchmark
+    public int toggle() {
+        flip = !flip;
+        List<ConstraintWrapper> constraints = toggle == Toggle.RESTRICTIONS && flip ? kb : allConstraints;
+        boolean withRequirement = toggle == Toggle.REQUIREMENT && flip;
+
+        return switch (strategy) {
+            case ENVIRONMENT -> solveWithEnvironment(constraints, withRequirement);
+            case POST_UNPOST -> solveWithPostUnpost(constraints, withRequirement);
+            case DELTA -> solveWithDelta(constraints, withRequirement);
+        };
+    }
+
+    private int solveWithEnvironment(List<ConstraintWrapper> constraints, boolean withRequirement) {
+        activation.activate(constraints);
+        try {
+            if (withRequirement) {
+                vars[0].instantiateTo(1, Cause.Null);
+            }
+            return solve(model.getSolver());
+        } catch (ContradictionException e) {
+            return 0;
+        } finally {
+            activation.deactivate();
+        }
+    }
+
+    private int solveWithPostUnpost(List<ConstraintWrapper> constraints, boolean withRequirement) {
+        constraints.stream().map(c -> c.getConstraints().toArray(new Constraint[0])).forEach(model::post);
+        if (withRequirement) {
+            model.post(requirement.getConstraints().toArray(new Constraint[0]));
+        }
+
+        int nbSolutions = solve(model.getSolver());
+
+        model.unpost(model.getCstrs());
+        model.getSolver().reset();
+        return nbSolutions;
+    }
+
+    private int solveWithDelta(List<ConstraintWrapper> constraints, boolean withRequirement) {
+        if (withRequirement) {
+            constraints = Lists.newArrayList(Iterables.concat(constraints, List.of(requirement)));
+        }
+        manager.switchTo(constraints);
+
+        int nbSolutions = solve(model.getSolver());
+
+        model.getSolver().reset();
+        return nbSolutions;
+    }
+
+    private int solve(Solver solver) {
+        int nbSolutions = 0;
+        while ((maxSolutions == -1 || nbSolutions < maxSolutions) && solver.solve()) {
+            nbSolutions++;
+        }
+        return nbSolutions;
+    }
+}
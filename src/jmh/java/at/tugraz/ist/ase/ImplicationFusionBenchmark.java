@@ -0,0 +1,85 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reified implications with the implications fused by {@link ImplicationFusion},
+ * on the car model ("car") and on generated KBs with the given number of implications.
+ * Each query runs over kb + restrictions with a requirement on the first variable.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImplicationFusionBenchmark {
+
+    @Param({"car", "1000", "10000"})
+    public String kb;
+
+    private ConfigurationSession reified;
+    private ConfigurationSession fused;
+    private List<Requirement> requirements;
+
+    @Setup
+    public void setUp() throws IOException {
+        KnowledgeBaseDefinition definition = kb.equals("car")
+                ? KnowledgeBaseReader.readResource("car.kb")
+                : KnowledgeBaseGenerator.builder()
+                .nbVariables(Integer.parseInt(kb) / 10)
+                .nbImplications(Integer.parseInt(kb))
+                .nbRestrictions(Integer.parseInt(kb) / 10)
+                .build()
+                .generate();
+
+        reified = definition.createSession();
+        fused = new ImplicationFusion(definition).createSession();
+
+        VariableDefinition first = definition.getVariables().get(0);
+        requirements = List.of(Requirement.of(first.getName(), first.getValues()[0]));
+    }
+
+    @Benchmark
+    public List<int[]> reifiedSolve() {
+        return reified.findSolutions(reified.getWrappers(), requirements, 10);
+    }
+
+    @Benchmark
+    public List<int[]> fusedSolve() {
+        return fused.findSolutions(fused.getWrappers(), requirements, 10);
+    }
+
+    @Benchmark
+    public Map<String, int[]> reifiedRemainingValues() {
+        return reified.remainingValues(reified.getWrappers(), requirements);
+    }
+
+    @Benchmark
+    public Map<String, int[]> fusedRemainingValues() {
+        return fused.remainingValues(fused.getWrappers(), requirements);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the start-up time of a session rebuilt from a {@link KnowledgeBaseDefinition}
+ * with a session created from a {@link KnowledgeBaseTemplate}, as the generated KB grows.
+ * The *AndActivate variants also post kb + restrictions, i.e., the session is ready for the first query.
+ * The *AndFirstQuery variants run a first query over the kb only, for which a template session,
+ * whose wrappers are all posted, has to unpost the restrictions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionStartupBenchmark {
+
+    /**
+     * the number of variables is a tenth of the number of implications
+     */
+    @Param({"1000", "10000", "50000"})
+    public int nbImplications;
+
+    private KnowledgeBaseDefinition definition;
+    private KnowledgeBaseTemplate template;
+
+    @Setup
+    public void setUp() {
+        definition = KnowledgeBaseGenerator.builder()
+                .nbVariables(nbImplications / 10)
+                .nbImplications(nbImplications)
+                .nbRestrictions(nbImplications / 10)
+                .build()
+                .generate();
+        template = new KnowledgeBaseTemplate(definition);
+    }
+
+    @Benchmark
+    public ConfigurationSession rebuild() {
+        return definition.createSession();
+    }
+
+    @Benchmark
+    public ConfigurationSession fromTemplate() {
+        return template.newSession();
+    }
+
+    @Benchmark
+    public ConfigurationSession rebuildAndActivate() {
+        return activate(definition.createSession());
+    }
+
+    @Benchmark
+    public ConfigurationSession fromTemplateAndActivate() {
+        return activate(template.newSession());
+    }
+
+    @Benchmark
+    public List<int[]> rebuildAndFirstQuery() {
+        return firstQuery(definition.createSession());
+    }
+
+    @Benchmark
+    public List<int[]> fromTemplateAndFirstQuery() {
+        return firstQuery(template.newSession());
+    }
+
+    private static List<int[]> firstQuery(ConfigurationSession session) {
+        return session.findSolutions(session.getKb(), List.of(), 1);
+    }
+
+    private static ConfigurationSession activate(ConfigurationSession session) {
+        session.getConstraintSetManager().switchTo(session.getWrappers());
+        return session;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+import org.chocosolver.memory.IEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs many queries, i.e., sets of user requirements, against the same wrappers.
+ * <p>
+ * The requirement sets are sorted into a trie, the most frequent variables first,
+ * and the trie is walked with nested worlds, so that a shared prefix of requirements is propagated once.
+ * The solutions of a query are searched from its node (input order, lower bound first,
+ * as the search of the session), without resetting the propagation engine.
+ * <p>
+ * With a {@link SessionPool} and an executor, the subtrees of the root are walked in parallel,
+ * each one in a borrowed session.
+ */
+public class BatchQueryEngine {
+
+    private final ConfigurationSession session;
+    private final SessionPool pool;
+    private final ExecutorService executor;
+
+    private final AtomicLong nbPropagations = new AtomicLong();
+
+    /**
+     * A sequential engine
+     */
+    public BatchQueryEngine(@NonNull ConfigurationSession session) {
+        this.session = session;
+        this.pool = null;
+        this.executor = null;
+    }
+
+    /**
+     * A parallel engine, the sessions of the pool must be created the same way
+     */
+    public BatchQueryEngine(@NonNull SessionPool pool, @NonNull ExecutorService executor) {
+        this.session = null;
+        this.pool = pool;
+        this.executor = executor;
+    }
+
+    /**
+     * @return the number of requirements propagated by the last run, compare with the total size of the requirement sets
+     */
+    public long getNbPropagations() {
+        return nbPropagations.get();
+    }
+
+    /**
+     * A node of the trie, the requirement is null at the root
+     */
+    private static final class Node {
+        final Requirement requirement;
+        final Map<Requirement, Node> children = new LinkedHashMap<>();
+        /**
+         * the indices of the requirement sets ending at this node
+         */
+        final List<Integer> queries = new ArrayList<>();
+        int size = 0;
+
+        Node(Requirement requirement) {
+            this.requirement = requirement;
+        }
+    }
+
+    /**
+     * Runs the queries without counting their solutions.
+     *
+     * @param constraints the wrappers to activate, for a parallel engine they are resolved in each session
+     * @param requirementSets the queries
+     * @param maxSolutions the number of solutions kept per query
+     * @return the result of each query in input order, the same as {@link QueryResult#solve}
+     */
+    public List<QueryResult> run(@NonNull Collection<ConstraintWrapper> constraints,
+                                 @NonNull List<? extends Collection<Requirement>> requirementSets,
+                                 int maxSolutions) {
+        return run(constraints, requirementSets, maxSolutions, false);
+    }
+
+    /**
+     * Runs the queries.
+     *
+     * @param maxSolutions the number of solutions kept per query
+     * @param count true to count all solutions of each query, see {@link QueryResult#solve}
+     * @return the result of each query in input order, the same as {@link QueryResult#solve}
+     */
+    public List<QueryResult> run(@NonNull Collection<ConstraintWrapper> constraints,
+                                 @NonNull List<? extends Collection<Requirement>> requirementSets,
+                                 int maxSolutions, boolean count) {
+        checkArgument(maxSolutions >= 0, "maxSolutions must be >= 0");
+        nbPropagations.set(0);
+
+        Node root = buildTrie(requirementSets);
+        QueryResult[] results = new QueryResult[requirementSets.size()];
+
+        if (pool == null) {
+            requirementSets.forEach(set -> set.forEach(r -> session.getVar(r.getVariable())));
+            walk(session, constraints, List.of(root), results, maxSolutions, count);
+        } else {
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            for (List<Node> subtrees : partition(root)) {
+                tasks.add(CompletableFuture.runAsync(() -> walkInPool(constraints, subtrees, results, maxSolutions, count), executor));
+            }
+            // the queries without requirements stay at the root
+            if (!root.queries.isEmpty()) {
+                Node rootQueries = new Node(null);
+                rootQueries.queries.addAll(root.queries);
+                tasks.add(CompletableFuture.runAsync(() -> walkInPool(constraints, List.of(rootQueries), results, maxSolutions, count), executor));
+            }
+            try {
+                CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+            } catch (CompletionException e) {
+                // e.g., an unknown variable
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private Node buildTrie(List<? extends Collection<Requirement>> requirementSets) {
+        // the most frequent variables first, to share the longest prefixes
+        Map<String, Integer> frequencies = new HashMap<>();
+        requirementSets.forEach(set -> set.stream().distinct()
+                .forEach(r -> frequencies.merge(r.getVariable(), 1, Integer::sum)));
+        Comparator<Requirement> order = Comparator
+                .comparing((Requirement r) -> -frequencies.get(r.getVariable()))
+                .thenComparing(Requirement::getVariable)
+                .thenComparingInt(Requirement::getValue);
+
+        Node root = new Node(null);
+        for (int i = 0; i < requirementSets.size(); i++) {
+            Node node = root;
+            node.size++;
+            for (Requirement requirement : requirementSets.get(i).stream().distinct().sorted(order).toList()) {
+                node = node.children.computeIfAbsent(requirement, Node::new);
+                node.size++;
+            }
+            node.queries.add(i);
+        }
+        return root;
+    }
+
+    /**
+     * Splits the subtrees of the root into groups of similar numbers of queries, a few per worker
+     */
+    private List<List<Node>> partition(Node root) {
+        List<Node> subtrees = new ArrayList<>(root.children.values());
+        subtrees.sort(Comparator.comparingInt((Node n) -> n.size).reversed());
+
+        int nbGroups = Math.min(subtrees.size(), pool.getSize() * 4);
+        List<List<Node>> groups = new ArrayList<>();
+        int[] sizes = new int[nbGroups];
+        for (int i = 0; i < nbGroups; i++) {
+            groups.add(new ArrayList<>());
+        }
+        // largest subtree into the smallest group
+        for (Node subtree : subtrees) {
+            int smallest = 0;
+            for (int i = 1; i < nbGroups; i++) {
+                if (sizes[i] < sizes[smallest]) {
+                    smallest = i;
+                }
+            }
+            groups.get(smallest).add(subtree);
+            sizes[smallest] += subtree.size;
+        }
+        return groups;
+    }
+
+    private void walkInPool(Collection<ConstraintWrapper> constraints, List<Node> subtrees,
+                            QueryResult[] results, int maxSolutions, boolean count) {
+        try {
+            pool.withSession(s -> {
+                walk(s, constraints.stream().map(s::resolve).toList(), subtrees, results, maxSolutions, count);
+                return null;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a session", e);
+        }
+    }
+
+    /**
+     * Walks the nodes from the root fixpoint of the wrappers
+     */
+    private void walk(ConfigurationSession session, Collection<ConstraintWrapper> constraints, List<Node> nodes,
+                      QueryResult[] results, int maxSolutions, boolean count) {
+        boolean consistent = session.openPropagation(constraints);
+        for (Node node : nodes) {
+            if (node.requirement == null) {
+                visit(session, node, consistent, results, maxSolutions, count);
+            } else {
+                descend(session, node, consistent, results, maxSolutions, count);
+            }
+        }
+    }
+
+    /**
+     * Propagates the requirement of the node in a new world, visits the node and pops the world
+     */
+    private void descend(ConfigurationSession session, Node node, boolean consistent,
+                         QueryResult[] results, int maxSolutions, boolean count) {
+        IEnvironment environment = session.getModel().getEnvironment();
+        environment.worldPush();
+        try {
+            if (consistent) {
+                nbPropagations.incrementAndGet();
+                consistent = session.propagate(List.of(node.requirement));
+            }
+            visit(session, node, consistent, results, maxSolutions, count);
+        } finally {
+            environment.worldPop();
+        }
+    }
+
+    private void visit(ConfigurationSession session, Node node, boolean consistent,
+                       QueryResult[] results, int maxSolutions, boolean count) {
+        if (!node.queries.isEmpty()) {
+            QueryResult result = consistent
+                    ? search(session, maxSolutions, count)
+                    : QueryResult.builder().consistent(false).count(0).build();
+            node.queries.forEach(i -> results[i] = result);
+        }
+        for (Node child : node.children.values()) {
+            descend(session, child, consistent, results, maxSolutions, count);
+        }
+    }
+
+    /**
+     * Searches the solutions from the current world, all of them only if counted, and restores it
+     */
+    private QueryResult search(ConfigurationSession session, int maxSolutions, boolean count) {
+        QueryResult.QueryResultBuilder builder = QueryResult.builder();
+        int[] kept = {0};
+        long found = session.enumerate(IntStream.range(0, session.getVars().length).toArray(),
+                count ? -1 : Math.max(maxSolutions, 1), row -> {
+                    if (kept[0] < maxSolutions) {
+                        builder.solution(row.clone());
+                        kept[0]++;
+                    }
+                });
+        return builder.consistent(found > 0).count(count || found == 0 ? found : -1).build();
+    }
+}
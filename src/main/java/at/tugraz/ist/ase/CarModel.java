@@ -8,7 +8,6 @@
 
 package at.tugraz.ist.ase;
 
-import com.google.common.base.Joiner;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import lombok.NonNull;
@@ -28,30 +27,37 @@ import static com.google.common.base.Preconditions.checkElementIndex;
 
 public class CarModel {
 
-    public static String[] varNames = new String[] {"modell", "farbe", "motorisierung", "anwendung", "preisgruppe", "antriebsart"};
+    /**
+     * the domains of the variables, with a label per value
+     */
+    public static final List<VariableDefinition> variables = List.of(
+            variable("modell", new int[]{1, 2, 3, 4, 5}, "limousine", "combi", "suv", "cabrio", "van"),
+            variable("farbe", new int[]{1, 2, 3, 4, 5}, "schwarz", "weib", "grau", "blau", "rot"),
+            variable("motorisierung", new int[]{100, 140, 180, 220, 260}, "100 kW", "140 kW", "180 kW", "220 kW", "260 kW"),
+            // Other variables
+            variable("anwendung", new int[]{0, 1}, "pkw", "transporter"),
+            variable("preisgruppe", new int[]{0, 1, 2}, "standard", "preisklasse1", "preisklasse2"),
+            variable("antriebsart", new int[]{0, 1, 2}, "benzin", "diesel", "elektrisch"));
+
+    public static String[] varNames = variables.stream().map(VariableDefinition::getName).toArray(String[]::new);
     public static IntVar[] vars;
     public static List<ConstraintWrapper> kb;
     public static List<ConstraintWrapper> restrictions;
     public static Model model;
 
     public static void createVariables() {
-        // 1 - limousine , 2 - combi , 3 - suv, 4 - cabrio, 5 - van
-        IntVar modell = model.intVar(varNames[0], new int[]{1, 2, 3, 4, 5});
-        // 1 - schwarz , 2 - weib , 3 - grau, 4 - blau, 5 - rot
-        IntVar farbe = model.intVar(varNames[1], new int[]{1, 2, 3, 4, 5});
-        IntVar motorisierung = model.intVar(varNames[2], new int[]{100, 140, 180, 220, 260});
-        // Other variables
-        // 0 - pkw, 1 - transporter
-        IntVar anwendung = model.intVar(varNames[3], new int[]{0, 1});
-        // 0 - standard, 1 - preisklasse1, 2 - preisklasse2
-        IntVar preisgruppe = model.intVar(varNames[4], new int[]{0, 1, 2});
-        // 0 - benzin, 1 - diesel, 2 - elektrisch
-        IntVar antriebsart = model.intVar(varNames[5], new int[]{0, 1, 2});
-
-        vars = new IntVar[] {modell, farbe, motorisierung, anwendung, preisgruppe, antriebsart};
+        vars = createVariables(model);
+    }
+
+    public static IntVar[] createVariables(@NonNull Model model) {
+        return variables.stream().map(v -> v.create(model)).toArray(IntVar[]::new);
     }
 
     public static void createKB_Approach1() {
+        createKB_Approach1(model, vars);
+    }
+
+    public static void createKB_Approach1(@NonNull Model model, @NonNull IntVar[] vars) {
         // Constraints from the tables
         // Constraint c1: modell = limousine => anwendung = pkw
         // + using ifThen method to encode the imply operator. The
@@ -211,12 +217,19 @@ public class CarModel {
         kb = new ArrayList<>();
         restrictions = new ArrayList<>();
 
+        createKB_Approach2(model, vars, kb, restrictions);
+    }
+
+    public static void createKB_Approach2(@NonNull Model model, @NonNull IntVar[] vars,
+                                          @NonNull List<ConstraintWrapper> kb,
+                                          @NonNull List<ConstraintWrapper> restrictions) {
+
         // Constraints from the tables
         // Constraint c1: modell = limousine => anwendung = pkw
         // + using ifThen method to encode the imply operator. The
         //   ifThen method will be automatically posted.
         // + using arithm method to express the arithmetical constraints
-        int counter = 0;
+        int counter = model.getNbCstrs();
         model.ifThen(
                 model.arithm(vars[0],"=",1),
                 model.arithm(vars[3],"=",0)
@@ -591,6 +604,70 @@ public class CarModel {
         solve_Approach2(model, kb);
     }
 
+    /**
+     * Approach 3 - selector literals
+     * Relevant for the scenario where we add/remove constraints of kb
+     * without changing the model structure
+     */
+    public static void approach3() {
+        model = new Model("Combeenation Car Model");
+
+        // Decision variables
+        createVariables();
+
+        // Knowledge Base
+        createKB_Approach2();
+
+        // remove/unpost all created constraints
+        model.unpost(model.getCstrs());
+
+        // reify each ConstraintWrapper once against its own selector
+        Iterable<ConstraintWrapper> combinedIterables = Iterables.unmodifiableIterable(Iterables.concat(kb, restrictions));
+        List<ConstraintWrapper> allConstraints = Lists.newArrayList(combinedIterables);
+        SelectorActivation activation = new SelectorActivation(model, allConstraints);
+
+        // Find all solutions for the initial model
+        System.out.println();
+        System.out.println("------ Find all solutions for the initial model ------");
+        solve_Approach3(activation, allConstraints);
+
+        // Find all solutions for the model without restrictions (without c16, c17, c18, c19, c20, c21)
+        System.out.println();
+        System.out.println("------ Find all solutions for the model without restrictions (without c16, c17, c18, c19, c20, c21) ------");
+        solve_Approach3(activation, kb);
+    }
+
+    /**
+     * Approach 4 - post and unpost only the delta of constraints
+     * Relevant for the scenario where consecutive queries differ by a few constraints of kb
+     */
+    public static void approach4() {
+        model = new Model("Combeenation Car Model");
+
+        // Decision variables
+        createVariables();
+
+        // Knowledge Base
+        createKB_Approach2();
+
+        // remove/unpost all created constraints
+        model.unpost(model.getCstrs());
+
+        ConstraintSetManager manager = new ConstraintSetManager(model);
+
+        // Find all solutions for the initial model
+        System.out.println();
+        System.out.println("------ Find all solutions for the initial model ------");
+        Iterable<ConstraintWrapper> combinedIterables = Iterables.unmodifiableIterable(Iterables.concat(kb, restrictions));
+        solve_Approach4(manager, Lists.newArrayList(combinedIterables));
+
+        // Find all solutions for the model without restrictions (without c16, c17, c18, c19, c20, c21)
+        // only the restrictions are unposted
+        System.out.println();
+        System.out.println("------ Find all solutions for the model without restrictions (without c16, c17, c18, c19, c20, c21) ------");
+        solve_Approach4(manager, kb);
+    }
+
     public static void main(String[] args) {
         System.out.println("------ APPROACH 1 ------");
         approach1();
@@ -598,6 +675,14 @@ public class CarModel {
         System.out.println();
         System.out.println("------ APPROACH 2 ------");
         approach2();
+
+        System.out.println();
+        System.out.println("------ APPROACH 3 ------");
+        approach3();
+
+        System.out.println();
+        System.out.println("------ APPROACH 4 ------");
+        approach4();
     }
 
     /**
@@ -633,6 +718,32 @@ public class CarModel {
         model.getSolver().reset(); // reset the solver
     }
 
+    /**
+     * Approach 3 - selector literals
+     */
+    public static void solve_Approach3(SelectorActivation activation, List<ConstraintWrapper> constraints) {
+        // enable the given constraints, disable the others
+        activation.activate(constraints);
+
+        solve(model.getSolver(), 10);
+
+        // get back the state before the activation
+        activation.deactivate();
+    }
+
+    /**
+     * Approach 4 - post and unpost only the delta of constraints
+     */
+    public static void solve_Approach4(ConstraintSetManager manager, List<ConstraintWrapper> constraints) {
+        // post/unpost the difference to the currently posted constraints
+        int touched = manager.switchTo(constraints);
+        System.out.println("Touched propagators: " + touched);
+
+        solve(model.getSolver(), 10);
+
+        model.getSolver().reset(); // reset the solver
+    }
+
     private static void solve(Solver solver, int maxSolutions) {
         AtomicInteger solutionCounter = new AtomicInteger();
         while (solver.solve()) {
@@ -655,80 +766,26 @@ public class CarModel {
     }
 
     private static void printSolution() {
-        String solutions = Joiner.on(",")
-                .join(Arrays.stream(vars)
-                        .map(var -> var.getName() + " = " + getRealValue(var.getName(), var.getValue()))
-                        .toArray());
-        System.out.println(solutions);
-    }
-
-    private static String getRealValue(String varName, int value) {
-        return switch (varName) {
-            case "modell" -> getRealValueForModell(value);
-            case "farbe" -> getRealValueForFarbe(value);
-            case "motorisierung" -> getRealValueForMotorisierung(value);
-            case "anwendung" -> getRealValueForAnwendung(value);
-            case "preisgruppe" -> getRealValueForPreisgruppe(value);
-            case "antriebsart" -> getRealValueForAntriebsart(value);
-            default -> "";
-        };
-    }
-
-    private static String getRealValueForAntriebsart(int value) {
-        // 0 - benzin, 1 - diesel, 2 - elektrisch
-        return switch (value) {
-            case 0 -> "benzin";
-            case 1 -> "diesel";
-            case 2 -> "elektrisch";
-            default -> "";
-        };
-    }
-
-    private static String getRealValueForPreisgruppe(int value) {
-        // 0 - standard, 1 - preisklasse1, 2 - preisklasse2
-        return switch (value) {
-            case 0 -> "standard";
-            case 1 -> "preisklasse1";
-            case 2 -> "preisklasse2";
-            default -> "";
-        };
-    }
-
-    private static String getRealValueForAnwendung(int value) {
-        // 0 - pkw, 1 - transporter
-        return switch (value) {
-            case 0 -> "pkw";
-            case 1 -> "transporter";
-            default -> "";
-        };
-    }
-
-    private static String getRealValueForModell(int value) {
-        // 1 - limousine , 2 - combi , 3 - suv, 4 - cabrio, 5 - van
-        return switch (value) {
-            case 1 -> "limousine";
-            case 2 -> "combi";
-            case 3 -> "suv";
-            case 4 -> "cabrio";
-            case 5 -> "van";
-            default -> "";
-        };
+        StringBuilder solution = new StringBuilder();
+        for (int i = 0; i < vars.length; i++) {
+            if (i > 0) {
+                solution.append(',');
+            }
+            solution.append(varNames[i]).append(" = ").append(getRealValue(i, vars[i].getValue()));
+        }
+        System.out.println(solution);
     }
 
-    private static String getRealValueForFarbe(int value) {
-        // 1 - schwarz , 2 - weib , 3 - grau, 4 - blau, 5 - rot
-        return switch (value) {
-            case 1 -> "schwarz";
-            case 2 -> "weib";
-            case 3 -> "grau";
-            case 4 -> "blau";
-            case 5 -> "rot";
-            default -> "";
-        };
+    private static String getRealValue(int var, int value) {
+        VariableDefinition variable = variables.get(var);
+        return variable.indexOf(value) == -1 ? "" : variable.getLabel(value);
     }
 
-    private static String getRealValueForMotorisierung(int value) {
-        // 100, 140, 180, 220, 260
-        return "" + value + " kW";
+    private static VariableDefinition variable(String name, int[] values, String... labels) {
+        return VariableDefinition.builder()
+                .name(name)
+                .values(values)
+                .labels(Arrays.asList(labels))
+                .build();
     }
-}
\ No newline at end of file
+}
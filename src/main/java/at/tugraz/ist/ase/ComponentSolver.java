@@ -0,0 +1,214 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.variables.Variable;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Splits the active wrappers into connected components over the variables and solves each component separately.
+ * <p>
+ * E.g., without the restrictions c16..c21, the car kb splits into {modell, anwendung}, {farbe, preisgruppe}
+ * and {motorisierung, antriebsart}: the solutions are the product of 5 + 5 + 5 component solutions
+ * instead of a search tree over 125 solutions. Counting multiplies the component counts,
+ * enumeration combines the component solutions lazily, see {@link DecomposedSolutions}.
+ * <p>
+ * With a {@link SessionPool} and an executor, the components are solved in parallel, each one in a borrowed session.
+ */
+public class ComponentSolver {
+
+    private final ConfigurationSession session;
+    private final SessionPool pool;
+    private final ExecutorService executor;
+
+    /**
+     * A sequential solver
+     */
+    public ComponentSolver(@NonNull ConfigurationSession session) {
+        this.session = session;
+        this.pool = null;
+        this.executor = null;
+    }
+
+    /**
+     * A parallel solver, the sessions of the pool must be created the same way
+     *
+     * @param session the session which analyses the wrappers, e.g., a session of the pool
+     */
+    public ComponentSolver(@NonNull ConfigurationSession session, @NonNull SessionPool pool,
+                           @NonNull ExecutorService executor) {
+        this.session = session;
+        this.pool = pool;
+        this.executor = executor;
+    }
+
+    /**
+     * Computes the connected components of the variables, two variables are connected
+     * if they belong to the same wrapper. A variable without wrapper is a component on its own.
+     *
+     * @return the indices in vars of the variables of each component, in the order of their first variable
+     */
+    public static List<int[]> components(@NonNull ConfigurationSession session,
+                                         @NonNull Collection<ConstraintWrapper> constraints) {
+        // the variables of the session first, then the auxiliary variables, e.g., of reifications
+        Map<Variable, Integer> indices = new IdentityHashMap<>();
+        for (Variable var : session.getVars()) {
+            indices.put(var, indices.size());
+        }
+        List<Integer> parents = new ArrayList<>();
+        for (int i = 0; i < indices.size(); i++) {
+            parents.add(i);
+        }
+
+        for (ConstraintWrapper wrapper : constraints) {
+            int first = -1;
+            for (Constraint constraint : wrapper.getConstraints()) {
+                for (Propagator<?> propagator : constraint.getPropagators()) {
+                    for (Variable var : propagator.getVars()) {
+                        int index = indices.computeIfAbsent(var, v -> {
+                            parents.add(parents.size());
+                            return parents.size() - 1;
+                        });
+                        if (first == -1) {
+                            first = index;
+                        } else {
+                            union(parents, first, index);
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> components = new LinkedHashMap<>();
+        for (int i = 0; i < session.getVars().length; i++) {
+            components.computeIfAbsent(find(parents, i), r -> new ArrayList<>()).add(i);
+        }
+        return components.values().stream()
+                .map(c -> c.stream().mapToInt(Integer::intValue).toArray())
+                .toList();
+    }
+
+    private static int find(List<Integer> parents, int i) {
+        while (parents.get(i) != i) {
+            // path halving
+            parents.set(i, parents.get(parents.get(i)));
+            i = parents.get(i);
+        }
+        return i;
+    }
+
+    private static void union(List<Integer> parents, int i, int j) {
+        int ri = find(parents, i);
+        int rj = find(parents, j);
+        if (ri != rj) {
+            parents.set(Math.max(ri, rj), Math.min(ri, rj));
+        }
+    }
+
+    /**
+     * Solves each component and keeps its solutions.
+     *
+     * @return the solutions, combined lazily
+     */
+    public DecomposedSolutions solve(@NonNull Collection<ConstraintWrapper> constraints,
+                                     @NonNull Collection<Requirement> requirements) {
+        List<int[]> components = components(session, constraints);
+        List<List<int[]>> solutions = run(constraints, requirements, components, true).stream()
+                .map(r -> r.solutions)
+                .toList();
+        return new DecomposedSolutions(session.getVars().length, components, solutions);
+    }
+
+    /**
+     * Counts the solutions as the product of the numbers of solutions of the components, without keeping them.
+     */
+    public BigInteger count(@NonNull Collection<ConstraintWrapper> constraints,
+                            @NonNull Collection<Requirement> requirements) {
+        List<int[]> components = components(session, constraints);
+        return run(constraints, requirements, components, false).stream()
+                .map(r -> BigInteger.valueOf(r.count))
+                .reduce(BigInteger.ONE, BigInteger::multiply);
+    }
+
+    private static final class ComponentResult {
+        long count;
+        final List<int[]> solutions = new ArrayList<>();
+    }
+
+    private List<ComponentResult> run(Collection<ConstraintWrapper> constraints, Collection<Requirement> requirements,
+                                      List<int[]> components, boolean keep) {
+        requirements.forEach(r -> session.getVar(r.getVariable()));
+        if (pool == null) {
+            return components.stream()
+                    .map(c -> solve(session, constraints, requirements, c, keep))
+                    .toList();
+        }
+
+        List<CompletableFuture<ComponentResult>> tasks = components.stream()
+                .map(c -> CompletableFuture.supplyAsync(() -> solveInPool(constraints, requirements, c, keep), executor))
+                .toList();
+        try {
+            return tasks.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private ComponentResult solveInPool(Collection<ConstraintWrapper> constraints, Collection<Requirement> requirements,
+                                        int[] component, boolean keep) {
+        try {
+            return pool.withSession(s ->
+                    solve(s, constraints.stream().map(s::resolve).toList(), requirements, component, keep));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a session", e);
+        }
+    }
+
+    /**
+     * Enumerates the solutions of a component from the root fixpoint of the wrappers and the requirements
+     */
+    private static ComponentResult solve(ConfigurationSession session, Collection<ConstraintWrapper> constraints,
+                                         Collection<Requirement> requirements, int[] component, boolean keep) {
+        ComponentResult result = new ComponentResult();
+        if (!session.openPropagation(constraints)) {
+            return result;
+        }
+
+        session.getModel().getEnvironment().worldPush();
+        try {
+            if (session.propagate(requirements)) {
+                result.count = session.enumerate(component, row -> {
+                    if (keep) {
+                        result.solutions.add(row.clone());
+                    }
+                });
+            }
+        } finally {
+            session.getModel().getEnvironment().worldPopUntil(session.getPropagationWorldIndex());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,676 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+import lombok.Getter;
+import lombok.NonNull;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.propagation.PropagationEngine;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A configuration session owns its own {@link Model}, variables and {@link ConstraintWrapper}s,
+ * so that several sessions can run concurrently in one JVM.
+ * A session is not thread-safe, it must be used by one thread at a time (see {@link SessionPool}).
+ * <p>
+ * Wrappers are activated with a {@link ConstraintSetManager}, user requirements
+ * are fixed inside a world which is popped after each query.
+ */
+public class ConfigurationSession {
+
+    @Getter
+    private final Model model;
+    @Getter
+    private final IntVar[] vars;
+    @Getter
+    private final List<ConstraintWrapper> kb;
+    @Getter
+    private final List<ConstraintWrapper> restrictions;
+    /**
+     * kb + restrictions
+     */
+    @Getter
+    private final List<ConstraintWrapper> wrappers;
+    @Getter
+    private final ConstraintSetManager constraintSetManager;
+
+    /**
+     * name -> index in vars/wrappers, immutable and shared by the sessions of a {@link KnowledgeBaseTemplate}
+     */
+    private final Map<String, Integer> varIndices;
+    private final Map<String, Integer> wrapperIndicesByName;
+    private final Map<ConstraintWrapper, Integer> wrapperIndices = new IdentityHashMap<>();
+    private final Map<Requirement, ConstraintWrapper> requirementWrappers = new HashMap<>();
+    private final int baseWorldIndex;
+    private SolutionIterator openIterator;
+    /**
+     * the wrappers whose root fixpoint is kept in the propagation world, null if the world is closed
+     */
+    private Set<ConstraintWrapper> propagatedConstraints;
+    private Collection<ConstraintWrapper> propagatedSource;
+    private int propagationWorldIndex;
+    private boolean propagationConsistent;
+    private int propagationVersion;
+    private boolean instrumented = false;
+    /**
+     * weak keys, the propagators of released lazy wrappers are not kept
+     */
+    private Map<Propagator<?>, String> propagatorOwners;
+    /**
+     * the materializations and releases of the cache when the owners were mapped
+     */
+    private long propagatorOwnersVersion;
+    /**
+     * the cache of the lazy wrappers, trimmed after each switch, null if the wrappers are not lazy
+     */
+    private MaterializationCache materializationCache;
+    /**
+     * the fusion which created the session, null if the session is not fused
+     */
+    private ImplicationFusion fusion;
+    private ConfigurationSpaceIndex index;
+    private Set<ConstraintWrapper> indexedConstraints;
+
+    /**
+     * @param model the model of the session
+     * @param vars the decision variables
+     * @param kb wrappers of the knowledge base, their constraints must be unposted
+     * @param restrictions wrappers of the restrictions, their constraints must be unposted
+     */
+    public ConfigurationSession(@NonNull Model model, @NonNull IntVar[] vars,
+                                @NonNull List<ConstraintWrapper> kb,
+                                @NonNull List<ConstraintWrapper> restrictions) {
+        this(model, vars, kb, restrictions,
+                indexByName(Arrays.stream(vars).map(IntVar::getName).toList()),
+                indexByName(Stream.concat(kb.stream(), restrictions.stream()).map(ConstraintWrapper::getName).toList()),
+                false);
+    }
+
+    /**
+     * @param varIndices the index of each variable by name
+     * @param wrapperIndicesByName the index of each wrapper of kb + restrictions by name
+     * @param posted true if all wrappers are still posted, false if they are unposted
+     */
+    ConfigurationSession(Model model, IntVar[] vars,
+                         List<ConstraintWrapper> kb, List<ConstraintWrapper> restrictions,
+                         Map<String, Integer> varIndices, Map<String, Integer> wrapperIndicesByName,
+                         boolean posted) {
+        this.model = model;
+        this.vars = vars;
+        this.kb = ImmutableList.copyOf(kb);
+        this.restrictions = ImmutableList.copyOf(restrictions);
+        this.wrappers = ImmutableList.<ConstraintWrapper>builder().addAll(kb).addAll(restrictions).build();
+        this.constraintSetManager = posted
+                ? new ConstraintSetManager(model, wrappers)
+                : new ConstraintSetManager(model);
+        this.varIndices = varIndices;
+        this.wrapperIndicesByName = wrapperIndicesByName;
+
+        for (int i = 0; i < wrappers.size(); i++) {
+            wrapperIndices.put(wrappers.get(i), i);
+        }
+        // only branch on the decision variables
+        model.getSolver().setSearch(Search.inputOrderLBSearch(vars));
+        baseWorldIndex = model.getEnvironment().getWorldIndex();
+    }
+
+    /**
+     * @return name -> position in the list, the first one wins for duplicated names
+     */
+    static Map<String, Integer> indexByName(List<String> names) {
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            indices.putIfAbsent(names.get(i), i);
+        }
+        return Collections.unmodifiableMap(indices);
+    }
+
+    /**
+     * Creates a session of the car model
+     */
+    public static ConfigurationSession carModel() {
+        Model model = new Model("Combeenation Car Model");
+        IntVar[] vars = CarModel.createVariables(model);
+
+        List<ConstraintWrapper> kb = new ArrayList<>();
+        List<ConstraintWrapper> restrictions = new ArrayList<>();
+        CarModel.createKB_Approach2(model, vars, kb, restrictions);
+
+        // remove/unpost all created constraints
+        model.unpost(model.getCstrs());
+
+        return new ConfigurationSession(model, vars, kb, restrictions);
+    }
+
+    /**
+     * Gets the user requirement as an unposted {@link ConstraintWrapper},
+     * e.g., to diagnose conflicts between requirements and the kb.
+     */
+    public ConstraintWrapper asConstraintWrapper(@NonNull Requirement requirement) {
+        return requirementWrappers.computeIfAbsent(requirement, r -> ConstraintWrapper.builder()
+                .name(r.toString())
+                .constraints(List.of(model.arithm(getVar(r.getVariable()), "=", r.getValue())))
+                .requirement(r)
+                .build());
+    }
+
+    /**
+     * Gets the counterpart of a wrapper of another session created the same way,
+     * i.e., the wrapper with the same name or the same requirement.
+     * A wrapper created on the model of this session, e.g., by {@link ImplicationFusion}, is its own counterpart.
+     * The counterpart of a partially enabled group of another fused session is the group over the same members
+     * of this session, see {@link ImplicationFusion#wrappers(ConfigurationSession, Collection)}.
+     */
+    public ConstraintWrapper resolve(@NonNull ConstraintWrapper wrapper) {
+        if (wrapper.getRequirement() != null) {
+            return asConstraintWrapper(wrapper.getRequirement());
+        }
+        if (wrapperIndices.containsKey(wrapper)) {
+            return wrapper;
+        }
+        // a lazy wrapper of another session is not materialized for the check
+        List<Constraint> constraints = wrapper.isMaterialized() ? wrapper.getConstraints() : null;
+        if (constraints != null && !constraints.isEmpty() && constraints.get(0).getPropagator(0).getModel() == model) {
+            return wrapper;
+        }
+        Integer index = wrapperIndicesByName.get(wrapper.getName());
+        if (index == null && fusion != null) {
+            ConstraintWrapper counterpart = fusion.counterpart(this, wrapper);
+            if (counterpart != null) {
+                return counterpart;
+            }
+        }
+        checkArgument(index != null, "Unknown ConstraintWrapper %s", wrapper.getName());
+        return wrappers.get(index);
+    }
+
+    /**
+     * @return the index of the wrapper in {@link #getWrappers()}
+     */
+    public int indexOf(@NonNull ConstraintWrapper wrapper) {
+        Integer index = wrapperIndices.get(wrapper);
+        checkArgument(index != null, "ConstraintWrapper %s does not belong to the session", wrapper.getName());
+        return index;
+    }
+
+    /**
+     * @return the canonical bitset of the wrappers over {@link #getWrappers()}
+     */
+    public BitSet toBitSet(@NonNull Collection<ConstraintWrapper> constraints) {
+        BitSet bits = new BitSet(wrapperIndices.size());
+        constraints.forEach(c -> bits.set(indexOf(c)));
+        return bits;
+    }
+
+    /**
+     * @return the wrappers of the bitset over {@link #getWrappers()}
+     */
+    public List<ConstraintWrapper> fromBitSet(@NonNull BitSet bits) {
+        return bits.stream().mapToObj(wrappers::get).toList();
+    }
+
+    public ConstraintWrapper getWrapper(@NonNull String name) {
+        Integer index = wrapperIndicesByName.get(name);
+        checkArgument(index != null, "Unknown ConstraintWrapper %s", name);
+        return wrappers.get(index);
+    }
+
+    public IntVar getVar(@NonNull String name) {
+        return vars[getVarIndex(name)];
+    }
+
+    /**
+     * @return the index of the variable in vars
+     */
+    public int getVarIndex(@NonNull String name) {
+        Integer index = varIndices.get(name);
+        checkArgument(index != null, "Unknown variable %s", name);
+        return index;
+    }
+
+    /**
+     * Finds solutions for the given wrappers and user requirements.
+     *
+     * @param constraints the wrappers to activate
+     * @param requirements the user requirements
+     * @param maxSolutions the maximum number of solutions, -1 for all solutions
+     * @return the values of {@link #getVars()} for each solution
+     */
+    public List<int[]> findSolutions(@NonNull Collection<ConstraintWrapper> constraints,
+                                     @NonNull Collection<Requirement> requirements,
+                                     int maxSolutions) {
+        List<int[]> solutions = new LinkedList<>();
+
+        try (SolutionIterator iterator = iterator(constraints, requirements)) {
+            while ((maxSolutions == -1 || solutions.size() < maxSolutions) && iterator.hasNext()) {
+                solutions.add(iterator.next().clone());
+            }
+        }
+        return solutions;
+    }
+
+    /**
+     * Lazily enumerates the solutions for the given wrappers and user requirements,
+     * the search runs only when the next solution is pulled.
+     * The iterator must be closed (or exhausted) before the next query of the session.
+     *
+     * @return an iterator over a reusable row of the values of {@link #getVars()}
+     */
+    public SolutionIterator iterator(@NonNull Collection<ConstraintWrapper> constraints,
+                                     @NonNull Collection<Requirement> requirements) {
+        closeIterator();
+        closePropagation();
+        instrument();
+        // check the requirements before opening the world
+        requirements.forEach(r -> getVar(r.getVariable()));
+
+        switchTo(constraints);
+        model.getEnvironment().worldPush();
+        boolean consistent = applyRequirements(requirements);
+
+        openIterator = new SolutionIterator(model, vars, model.getEnvironment().getWorldIndex(), consistent);
+        return openIterator;
+    }
+
+    /**
+     * Same as {@link #iterator(Collection, Collection)} as a sequential stream,
+     * e.g., {@code stream(kb, requirements).skip(20).limit(10)} to page the solutions.
+     * The stream must be closed, e.g., with try-with-resources, unless it is fully consumed.
+     */
+    public Stream<int[]> stream(@NonNull Collection<ConstraintWrapper> constraints,
+                                @NonNull Collection<Requirement> requirements) {
+        SolutionIterator iterator = iterator(constraints, requirements);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    private void closeIterator() {
+        if (openIterator != null) {
+            openIterator.close();
+            openIterator = null;
+        }
+    }
+
+    public boolean isConsistent(@NonNull Collection<ConstraintWrapper> constraints,
+                                @NonNull Collection<Requirement> requirements) {
+        return !findSolutions(constraints, requirements, 1).isEmpty();
+    }
+
+    /**
+     * Same as {@link #remainingValues(Collection, Collection, boolean)} without singleton arc consistency
+     */
+    public Map<String, int[]> remainingValues(@NonNull Collection<ConstraintWrapper> constraints,
+                                              @NonNull Collection<Requirement> requirements) {
+        return remainingValues(constraints, requirements, false);
+    }
+
+    /**
+     * Gets the values of each variable which remain possible under the user requirements by propagation only,
+     * i.e., without enumerating solutions. The values are a superset of the values of the solutions,
+     * singleton arc consistency gets closer to them at the cost of one propagation per value.
+     * <p>
+     * The root fixpoint of the wrappers is kept in a world until the set of wrappers changes
+     * or another query is run, so that a query only propagates the events of its requirements.
+     *
+     * @param sac true to run a singleton arc consistency pass after the propagation
+     * @return for each variable, the remaining values, all empty if the requirements are inconsistent
+     */
+    public Map<String, int[]> remainingValues(@NonNull Collection<ConstraintWrapper> constraints,
+                                              @NonNull Collection<Requirement> requirements,
+                                              boolean sac) {
+        requirements.forEach(r -> getVar(r.getVariable()));
+        long start = System.nanoTime();
+        boolean rootConsistent = openPropagation(constraints);
+        propagationVersion++;
+
+        model.getEnvironment().worldPush();
+        try {
+            boolean consistent = rootConsistent
+                    && propagate(requirements)
+                    && (!sac || singletonArcConsistency());
+            return domains(consistent);
+        } finally {
+            // drop the pending events of failed requirements
+            model.getSolver().getEngine().flush();
+            model.getEnvironment().worldPopUntil(propagationWorldIndex);
+            Instrumentation.get().recordLatency(Instrumentation.Query.PROPAGATE, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Opens the propagation world of the wrappers, i.e., the world holding their root fixpoint,
+     * or keeps it if it is already open for the same wrappers. Worlds above it are popped.
+     *
+     * @return false if the root propagation fails
+     */
+    boolean openPropagation(Collection<ConstraintWrapper> constraints) {
+        closeIterator();
+        instrument();
+
+        // the same immutable collection, e.g., getWrappers(), needs no comparison
+        if (constraints != propagatedSource || !(constraints instanceof ImmutableCollection)) {
+            // wrappers are compared by identity
+            Set<ConstraintWrapper> requested = Collections.newSetFromMap(new IdentityHashMap<>());
+            requested.addAll(constraints);
+            if (!requested.equals(propagatedConstraints)) {
+                closePropagation();
+                switchTo(constraints);
+                model.getEnvironment().worldPush();
+                propagationWorldIndex = model.getEnvironment().getWorldIndex();
+                propagatedConstraints = requested;
+                propagationConsistent = propagate();
+            }
+            propagatedSource = constraints;
+        }
+        model.getEnvironment().worldPopUntil(propagationWorldIndex);
+        return propagationConsistent;
+    }
+
+    /**
+     * @return the index of the world opened by {@link #openPropagation(Collection)}
+     */
+    int getPropagationWorldIndex() {
+        return propagationWorldIndex;
+    }
+
+    /**
+     * @return a number which changes whenever the session modifies the worlds above the propagation world
+     */
+    int getPropagationVersion() {
+        return propagationVersion;
+    }
+
+    /**
+     * Fixes the requirements in the current world and propagates them.
+     *
+     * @return false if the requirements fail
+     */
+    boolean propagate(Collection<Requirement> requirements) {
+        if (applyRequirements(requirements) && propagate()) {
+            return true;
+        }
+        model.getSolver().getEngine().flush();
+        return false;
+    }
+
+    /**
+     * @return for each variable, its current domain, all empty if not consistent
+     */
+    Map<String, int[]> domains(boolean consistent) {
+        Map<String, int[]> remaining = new LinkedHashMap<>(vars.length * 2);
+        for (IntVar var : vars) {
+            remaining.put(var.getName(), consistent
+                    ? IntStream.iterate(var.getLB(), v -> v <= var.getUB(), var::nextValue).toArray()
+                    : new int[0]);
+        }
+        return remaining;
+    }
+
+    /**
+     * Enumerates the assignments of the variables of the scope from the current world by a depth-first search
+     * (scope order, lower bound first) and restores the world. The search does not use the solver,
+     * so the propagation world is kept. The other variables are not assigned, i.e., the rows are solutions
+     * if the scope holds all variables or a connected component of the active wrappers.
+     *
+     * @param scope the indices of the variables in vars
+     * @param onSolution gets the values of the scope, the row is reused
+     * @return the number of solutions
+     */
+    long enumerate(int[] scope, Consumer<int[]> onSolution) {
+        return enumerate(scope, -1, onSolution);
+    }
+
+    /**
+     * Same as {@link #enumerate(int[], Consumer)}, stops after limit solutions.
+     *
+     * @param limit the maximal number of solutions, -1 for no limit
+     * @return the number of solutions found
+     */
+    long enumerate(int[] scope, long limit, Consumer<int[]> onSolution) {
+        model.getEnvironment().worldPush();
+        try {
+            return enumerate(scope, 0, new int[scope.length], limit == -1 ? Long.MAX_VALUE : limit, onSolution);
+        } finally {
+            model.getEnvironment().worldPop();
+        }
+    }
+
+    private long enumerate(int[] scope, int position, int[] row, long limit, Consumer<int[]> onSolution) {
+        while (position < scope.length && vars[scope[position]].isInstantiated()) {
+            position++;
+        }
+        if (position == scope.length) {
+            for (int i = 0; i < scope.length; i++) {
+                row[i] = vars[scope[i]].getValue();
+            }
+            onSolution.accept(row);
+            return 1;
+        }
+
+        IntVar var = vars[scope[position]];
+        long count = 0;
+        for (int value = var.getLB(); value <= var.getUB() && count < limit; value = var.nextValue(value)) {
+            model.getEnvironment().worldPush();
+            try {
+                var.instantiateTo(value, Cause.Null);
+                if (propagate()) {
+                    count += enumerate(scope, position + 1, row, limit - count, onSolution);
+                }
+            } catch (ContradictionException e) {
+                model.getSolver().getEngine().flush();
+            } finally {
+                model.getEnvironment().worldPop();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes the values whose assignment fails by propagation until a fixpoint is reached.
+     *
+     * @return false if a domain becomes empty
+     */
+    boolean singletonArcConsistency() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (IntVar var : vars) {
+                for (int value = var.getLB(); value <= var.getUB() && !var.isInstantiated(); value = var.nextValue(value)) {
+                    model.getEnvironment().worldPush();
+                    boolean supported;
+                    try {
+                        var.instantiateTo(value, Cause.Null);
+                        supported = propagate();
+                    } catch (ContradictionException e) {
+                        supported = false;
+                    } finally {
+                        model.getEnvironment().worldPop();
+                    }
+
+                    if (!supported) {
+                        try {
+                            var.removeValue(value, Cause.Null);
+                        } catch (ContradictionException e) {
+                            return false;
+                        }
+                        if (!propagate()) {
+                            return false;
+                        }
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the propagation fails
+     */
+    private boolean propagate() {
+        try {
+            model.getSolver().propagate();
+            return true;
+        } catch (ContradictionException e) {
+            return false;
+        }
+    }
+
+    private void closePropagation() {
+        if (propagatedConstraints != null) {
+            propagationVersion++;
+            propagatedConstraints = null;
+            propagatedSource = null;
+            model.getSolver().reset();
+            model.getEnvironment().worldPopUntil(propagationWorldIndex - 1);
+        }
+    }
+
+    void setMaterializationCache(MaterializationCache materializationCache) {
+        this.materializationCache = materializationCache;
+    }
+
+    void setFusion(ImplicationFusion fusion) {
+        this.fusion = fusion;
+    }
+
+    /**
+     * Posts/unposts the delta to the wrappers, then releases the unposted lazy wrappers beyond the bound of the cache
+     */
+    private void switchTo(Collection<ConstraintWrapper> constraints) {
+        constraintSetManager.switchTo(constraints);
+        if (materializationCache != null) {
+            materializationCache.trim();
+        }
+    }
+
+    /**
+     * Switches the propagation engine when the {@link Instrumentation} has been enabled or disabled.
+     * The solver must not be solving.
+     */
+    private void instrument() {
+        boolean enabled = Instrumentation.get().isEnabled();
+        if (enabled != instrumented) {
+            closePropagation();
+            Solver solver = model.getSolver();
+            solver.reset();
+            solver.setEngine(enabled ? new InstrumentedEngine(model, this::ownerOf) : new PropagationEngine(model));
+            instrumented = enabled;
+        }
+    }
+
+    /**
+     * @return the name of the wrapper of the propagator, {@link Instrumentation#OTHER} if none
+     */
+    private String ownerOf(Propagator<?> propagator) {
+        long version = materializationCache == null
+                ? 0
+                : materializationCache.getNbMaterializations() + materializationCache.getNbReleases();
+        if (propagatorOwners == null || version != propagatorOwnersVersion) {
+            // lazy wrappers are mapped once materialized, their constraints change when they are released
+            propagatorOwners = new WeakHashMap<>();
+            for (ConstraintWrapper wrapper : wrappers) {
+                if (wrapper.isMaterialized()) {
+                    for (Constraint constraint : wrapper.getConstraints()) {
+                        Arrays.stream(constraint.getPropagators()).forEach(p -> propagatorOwners.put(p, wrapper.getName()));
+                    }
+                }
+            }
+            propagatorOwnersVersion = version;
+        }
+
+        String owner = propagatorOwners.get(propagator);
+        if (owner == null) {
+            // user requirements are created on demand
+            owner = requirementWrappers.values().stream()
+                    .filter(w -> w.getConstraints().stream().anyMatch(c -> c == propagator.getConstraint()))
+                    .map(ConstraintWrapper::getName)
+                    .findFirst()
+                    .orElse(Instrumentation.OTHER);
+            propagatorOwners.put(propagator, owner);
+        }
+        return owner;
+    }
+
+    /**
+     * Gets the compiled index of the configuration space of the given wrappers,
+     * the index is rebuilt only when the set of wrappers changes.
+     *
+     * @param maxSolutions the maximum size of the configuration space
+     */
+    public ConfigurationSpaceIndex getIndex(@NonNull Collection<ConstraintWrapper> constraints, int maxSolutions) {
+        Set<ConstraintWrapper> requested = new HashSet<>(constraints);
+        if (index == null || !requested.equals(indexedConstraints)) {
+            index = ConfigurationSpaceIndex.compile(this, requested, maxSolutions);
+            indexedConstraints = requested;
+        }
+        return index;
+    }
+
+    /**
+     * Fixes the variables of the requirements in the current world.
+     *
+     * @return false if the requirements are in conflict with the variable domains
+     */
+    boolean applyRequirements(Collection<Requirement> requirements) {
+        try {
+            for (Requirement requirement : requirements) {
+                getVar(requirement.getVariable()).instantiateTo(requirement.getValue(), Cause.Null);
+            }
+            return true;
+        } catch (ContradictionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets back the state after the creation of the session,
+     * posted wrappers are kept to benefit from the next delta switch.
+     */
+    public void reset() {
+        closeIterator();
+        closePropagation();
+        model.getSolver().reset();
+        model.getEnvironment().worldPopUntil(baseWorldIndex);
+        checkState(model.getEnvironment().getWorldIndex() == baseWorldIndex, "Cannot restore the base world");
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A compiled index of the valid configuration space of a set of {@link ConstraintWrapper}s.
+ * <p>
+ * The solutions are numbered, and for each variable/value there is a bitset of the solutions
+ * having this value. Validity checks, remaining values and solution counts under user requirements
+ * are answered with bitwise AND/popcount operations instead of search.
+ * Only suitable for small configuration spaces as the car model (2,250 tuples).
+ */
+public class ConfigurationSpaceIndex {
+
+    private final String[] varNames;
+    private final int[][] domains;
+    private final Map<String, Integer> varIndices = new HashMap<>();
+    /**
+     * [variable][index of value] -> solutions having the value
+     */
+    private final BitSet[][] valueBits;
+    @Getter
+    private final int nbSolutions;
+
+    private ConfigurationSpaceIndex(String[] varNames, int[][] domains, BitSet[][] valueBits, int nbSolutions) {
+        this.varNames = varNames;
+        this.domains = domains;
+        this.valueBits = valueBits;
+        this.nbSolutions = nbSolutions;
+
+        for (int i = 0; i < varNames.length; i++) {
+            varIndices.put(varNames[i], i);
+        }
+    }
+
+    /**
+     * Enumerates all solutions of the given wrappers into an index.
+     *
+     * @param maxSolutions the maximum size of the configuration space
+     * @throws IllegalStateException if the space has more than maxSolutions solutions
+     */
+    public static ConfigurationSpaceIndex compile(@NonNull ConfigurationSession session,
+                                                  @NonNull Collection<ConstraintWrapper> constraints,
+                                                  int maxSolutions) {
+        IntVar[] vars = session.getVars();
+        String[] varNames = Arrays.stream(vars).map(IntVar::getName).toArray(String[]::new);
+        int[][] domains = Arrays.stream(vars).map(ConfigurationSpaceIndex::domain).toArray(int[][]::new);
+
+        BitSet[][] valueBits = new BitSet[vars.length][];
+        for (int i = 0; i < vars.length; i++) {
+            valueBits[i] = Stream.generate(BitSet::new).limit(domains[i].length).toArray(BitSet[]::new);
+        }
+
+        int nbSolutions = 0;
+        try (SolutionIterator iterator = session.iterator(constraints, List.of())) {
+            while (iterator.hasNext()) {
+                checkState(nbSolutions < maxSolutions, "The configuration space has more than %s solutions", maxSolutions);
+
+                int[] row = iterator.next();
+                for (int i = 0; i < row.length; i++) {
+                    valueBits[i][Arrays.binarySearch(domains[i], row[i])].set(nbSolutions);
+                }
+                nbSolutions++;
+            }
+        }
+        return new ConfigurationSpaceIndex(varNames, domains, valueBits, nbSolutions);
+    }
+
+    private static int[] domain(IntVar var) {
+        return IntStream.iterate(var.getLB(), v -> v <= var.getUB(), var::nextValue).toArray();
+    }
+
+    public boolean isConsistent(@NonNull Collection<Requirement> requirements) {
+        return !select(requirements).isEmpty();
+    }
+
+    public int count(@NonNull Collection<Requirement> requirements) {
+        return select(requirements).cardinality();
+    }
+
+    /**
+     * @return for each variable, the values which remain possible under the requirements
+     */
+    public Map<String, int[]> remainingValues(@NonNull Collection<Requirement> requirements) {
+        BitSet selected = select(requirements);
+
+        Map<String, int[]> remaining = new HashMap<>();
+        for (int i = 0; i < varNames.length; i++) {
+            BitSet[] bits = valueBits[i];
+            int[] domain = domains[i];
+            remaining.put(varNames[i], IntStream.range(0, domain.length)
+                    .filter(v -> bits[v].intersects(selected))
+                    .map(v -> domain[v])
+                    .toArray());
+        }
+        return remaining;
+    }
+
+    /**
+     * @return the solutions satisfying all requirements
+     */
+    private BitSet select(Collection<Requirement> requirements) {
+        BitSet selected = new BitSet(nbSolutions);
+        selected.set(0, nbSolutions);
+
+        for (Requirement requirement : requirements) {
+            Integer var = varIndices.get(requirement.getVariable());
+            checkArgument(var != null, "Unknown variable %s", requirement.getVariable());
+
+            int value = Arrays.binarySearch(domains[var], requirement.getValue());
+            if (value < 0) {
+                selected.clear();
+                break;
+            }
+            selected.and(valueBits[var][value]);
+        }
+        return selected;
+    }
+}
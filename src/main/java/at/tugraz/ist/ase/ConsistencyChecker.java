@@ -0,0 +1,47 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Checks whether a set of {@link ConstraintWrapper}s is consistent
+ */
+@FunctionalInterface
+public interface ConsistencyChecker {
+
+    boolean isConsistent(@NonNull Collection<ConstraintWrapper> constraints);
+
+    /**
+     * A checker running on one session, it must be used by one thread at a time.
+     */
+    static ConsistencyChecker of(@NonNull ConfigurationSession session) {
+        return constraints -> session.isConsistent(
+                constraints.stream().map(session::resolve).toList(), List.of());
+    }
+
+    /**
+     * A thread-safe checker running each check on a session borrowed from the pool.
+     * The wrappers are resolved by name (or requirement) in the borrowed session.
+     */
+    static ConsistencyChecker of(@NonNull SessionPool pool) {
+        return constraints -> {
+            try {
+                return pool.withSession(session -> session.isConsistent(
+                        constraints.stream().map(session::resolve).toList(), List.of()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a session", e);
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A memoizing {@link ConsistencyChecker} in front of the solver.
+ * <p>
+ * Every checked set of wrappers is stored as a bitset. A set is known to be inconsistent
+ * if it is a superset of a known inconsistent set, and known to be consistent if it is
+ * a subset of a known consistent set. Only the other sets reach the underlying checker.
+ * Only the minimal inconsistent and the maximal consistent sets are kept.
+ * Thread-safe if the underlying checker is.
+ */
+public class ConsistencyOracle implements ConsistencyChecker {
+
+    private final ConsistencyChecker checker;
+
+    private final Map<ConstraintWrapper, Integer> indices = new HashMap<>();
+    private final List<BitSet> consistentSets = new ArrayList<>();
+    private final List<BitSet> inconsistentSets = new ArrayList<>();
+
+    private final AtomicLong nbQueries = new AtomicLong();
+    private final AtomicLong nbSolverCalls = new AtomicLong();
+
+    public ConsistencyOracle(@NonNull ConsistencyChecker checker) {
+        this.checker = checker;
+    }
+
+    /**
+     * @param universe the wrappers to index first, e.g., kb + restrictions
+     */
+    public ConsistencyOracle(@NonNull ConsistencyChecker checker, @NonNull List<ConstraintWrapper> universe) {
+        this(checker);
+        universe.forEach(this::indexOf);
+    }
+
+    @Override
+    public boolean isConsistent(@NonNull Collection<ConstraintWrapper> constraints) {
+        nbQueries.incrementAndGet();
+
+        BitSet bits;
+        synchronized (this) {
+            bits = toBitSet(constraints);
+
+            for (BitSet inconsistent : inconsistentSets) {
+                if (isSubset(inconsistent, bits)) {
+                    return false;
+                }
+            }
+            for (BitSet consistent : consistentSets) {
+                if (isSubset(bits, consistent)) {
+                    return true;
+                }
+            }
+        }
+
+        nbSolverCalls.incrementAndGet();
+        boolean consistent = checker.isConsistent(constraints);
+
+        synchronized (this) {
+            if (consistent) {
+                consistentSets.removeIf(s -> isSubset(s, bits));
+                consistentSets.add(bits);
+            } else {
+                inconsistentSets.removeIf(s -> isSubset(bits, s));
+                inconsistentSets.add(bits);
+            }
+        }
+        return consistent;
+    }
+
+    /**
+     * @return the number of answered queries
+     */
+    public long getNbQueries() {
+        return nbQueries.get();
+    }
+
+    /**
+     * @return the number of queries which reached the underlying checker
+     */
+    public long getNbSolverCalls() {
+        return nbSolverCalls.get();
+    }
+
+    public synchronized void clear() {
+        consistentSets.clear();
+        inconsistentSets.clear();
+    }
+
+    private int indexOf(ConstraintWrapper wrapper) {
+        return indices.computeIfAbsent(wrapper, w -> indices.size());
+    }
+
+    private BitSet toBitSet(Collection<ConstraintWrapper> constraints) {
+        BitSet bits = new BitSet(indices.size());
+        constraints.forEach(c -> bits.set(indexOf(c)));
+        return bits;
+    }
+
+    /**
+     * @return true if a is a subset of b
+     */
+    private static boolean isSubset(BitSet a, BitSet b) {
+        BitSet difference = (BitSet) a.clone();
+        difference.andNot(b);
+        return difference.isEmpty();
+    }
+}
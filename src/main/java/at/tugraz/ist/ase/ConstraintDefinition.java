@@ -0,0 +1,171 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A constraint of the form
+ * condition_1 /\ ... /\ condition_n => consequence_1 /\ ... /\ consequence_m,
+ * e.g., c16: modell = limousine /\ antriebsart = diesel => farbe != blau /\ farbe != grau.
+ * Without conditions, the consequences always hold.
+ */
+@Value
+@Builder
+public class ConstraintDefinition {
+    /**
+     * the maximal number of tuples of the scope of {@link #toTable}
+     */
+    public static final int MAX_TUPLES = 1 << 20;
+
+    @NonNull String name;
+    @Singular List<Literal> conditions;
+    @Singular List<Literal> consequences;
+
+    /**
+     * @return the names of the variables of the constraint
+     */
+    public Set<String> getScope() {
+        Set<String> scope = new LinkedHashSet<>();
+        conditions.forEach(l -> scope.add(l.getVariable()));
+        consequences.forEach(l -> scope.add(l.getVariable()));
+        return scope;
+    }
+
+    /**
+     * Posts the Choco constraints of the definition, the same way as {@link CarModel#createKB_Approach1()}.
+     */
+    public void post(@NonNull Model model, @NonNull Function<String, IntVar> vars) {
+        checkArgument(!consequences.isEmpty(), "%s has no consequence", name);
+
+        Constraint consequence = and(model, consequences, vars);
+        if (conditions.isEmpty()) {
+            consequence.post();
+        } else {
+            model.ifThen(and(model, conditions, vars), consequence);
+        }
+    }
+
+    /**
+     * Posts the Choco constraints of the definition and wraps them,
+     * the same way as {@link CarModel#createKB_Approach2()}.
+     */
+    public ConstraintWrapper createWrapper(@NonNull Model model, @NonNull Function<String, IntVar> vars) {
+        int counter = model.getNbCstrs();
+        post(model, vars);
+
+        // add Choco constraints to ConstraintWrapper
+        List<Constraint> cstrs = CarModel.getConstraints(model, counter, model.getNbCstrs() - 1);
+        return ConstraintWrapper.builder()
+                .name(name)
+                .constraints(cstrs)
+                .build();
+    }
+
+    /**
+     * Creates the definition as one table constraint over its scope, whose forbidden tuples are the assignments
+     * satisfying the conditions but not the consequences. Unlike {@link #post}, it creates no auxiliary variables,
+     * so that it can be created again and again, e.g., by a lazy wrapper, without growing the model.
+     *
+     * @param domains the values of each variable
+     */
+    public Constraint toTable(@NonNull Model model, @NonNull Function<String, IntVar> vars,
+                              @NonNull Function<String, int[]> domains) {
+        checkArgument(!consequences.isEmpty(), "%s has no consequence", name);
+
+        List<String> scope = List.copyOf(getScope());
+        int[][] values = scope.stream().map(domains).toArray(int[][]::new);
+        long size = Arrays.stream(values).mapToLong(v -> v.length).reduce(1, Math::multiplyExact);
+        checkArgument(size <= MAX_TUPLES, "The scope of %s has %s tuples, more than %s", name, size, MAX_TUPLES);
+
+        List<int[]> forbidden = new ArrayList<>();
+        int[] positions = new int[scope.size()];
+        for (long t = 0; t < size; t++) {
+            int[] tuple = new int[scope.size()];
+            for (int i = 0; i < tuple.length; i++) {
+                tuple[i] = values[i][positions[i]];
+            }
+            if (holds(conditions, scope, tuple) && !holds(consequences, scope, tuple)) {
+                forbidden.add(tuple);
+            }
+            // next assignment, the last variable varies fastest
+            for (int i = tuple.length - 1; i >= 0 && ++positions[i] == values[i].length; i--) {
+                positions[i] = 0;
+            }
+        }
+
+        if (forbidden.isEmpty()) {
+            return model.trueConstraint();
+        }
+        IntVar[] scopeVars = scope.stream().map(vars).toArray(IntVar[]::new);
+        if (scopeVars.length == 1) {
+            // a unary table is a member constraint
+            Set<Integer> excluded = forbidden.stream().map(f -> f[0]).collect(Collectors.toSet());
+            int[] allowed = Arrays.stream(values[0]).filter(v -> !excluded.contains(v)).toArray();
+            return allowed.length == 0 ? model.falseConstraint() : model.member(scopeVars[0], allowed);
+        }
+        return model.table(scopeVars, new Tuples(forbidden.toArray(int[][]::new), false));
+    }
+
+    /**
+     * Wraps the definition into a lazy {@link ConstraintWrapper} of the cache,
+     * its table constraint is created on the first activation, see {@link #toTable}.
+     */
+    public ConstraintWrapper createLazyWrapper(@NonNull Model model, @NonNull Function<String, IntVar> vars,
+                                               @NonNull Function<String, int[]> domains,
+                                               @NonNull MaterializationCache cache) {
+        return cache.wrap(name, () -> List.of(toTable(model, vars, domains)));
+    }
+
+    private static boolean holds(List<Literal> literals, List<String> scope, int[] tuple) {
+        for (Literal literal : literals) {
+            if (!literal.isSatisfiedBy(tuple[scope.indexOf(literal.getVariable())])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Constraint and(Model model, List<Literal> literals, Function<String, IntVar> vars) {
+        if (literals.size() == 1) {
+            Literal literal = literals.get(0);
+            return literal.toConstraint(model, vars.apply(literal.getVariable()));
+        }
+        return model.and(literals.stream()
+                .map(l -> l.toConstraint(model, vars.apply(l.getVariable())))
+                .toArray(Constraint[]::new));
+    }
+
+    @Override
+    public String toString() {
+        String consequence = consequences.stream().map(Literal::toString).collect(Collectors.joining(" /\\ "));
+        if (conditions.isEmpty()) {
+            return name + ": " + consequence;
+        }
+        return name + ": " + conditions.stream().map(Literal::toString).collect(Collectors.joining(" /\\ "))
+                + " => " + consequence;
+    }
+}
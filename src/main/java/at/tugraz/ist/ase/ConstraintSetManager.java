@@ -0,0 +1,113 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps track of the {@link ConstraintWrapper}s currently posted to a model
+ * and switches to another set by posting/unposting only the symmetric difference.
+ */
+public class ConstraintSetManager {
+
+    private final Model model;
+    private final Set<ConstraintWrapper> posted = new LinkedHashSet<>();
+
+    /**
+     * The number of propagators posted/unposted by the last switch.
+     */
+    @Getter
+    private int lastTouchedPropagators = 0;
+
+    /**
+     * @param model a model whose wrappers are currently unposted
+     */
+    public ConstraintSetManager(@NonNull Model model) {
+        this.model = model;
+    }
+
+    /**
+     * @param model a model whose wrappers are currently unposted, except the given ones
+     * @param posted the wrappers which are currently posted
+     */
+    public ConstraintSetManager(@NonNull Model model, @NonNull Collection<ConstraintWrapper> posted) {
+        this.model = model;
+        this.posted.addAll(posted);
+    }
+
+    public Set<ConstraintWrapper> getPosted() {
+        return Collections.unmodifiableSet(posted);
+    }
+
+    public boolean isPosted(@NonNull ConstraintWrapper wrapper) {
+        return posted.contains(wrapper);
+    }
+
+    /**
+     * Posts the wrappers which are requested but not posted yet,
+     * and unposts the posted wrappers which are not requested anymore.
+     * The solver must not be solving, i.e., call {@code solver.reset()} before.
+     *
+     * @param constraints the requested set of wrappers
+     * @return the number of propagators touched
+     */
+    public int switchTo(@NonNull Collection<ConstraintWrapper> constraints) {
+        Set<ConstraintWrapper> requested = new LinkedHashSet<>(constraints);
+        int touched = 0;
+
+        // unpost the wrappers which are not requested anymore
+        Iterator<ConstraintWrapper> iterator = posted.iterator();
+        while (iterator.hasNext()) {
+            ConstraintWrapper wrapper = iterator.next();
+            if (!requested.contains(wrapper)) {
+                model.unpost(toArray(wrapper));
+                touched += countPropagators(wrapper);
+                iterator.remove();
+            }
+        }
+
+        // post the new ones
+        for (ConstraintWrapper wrapper : requested) {
+            if (posted.add(wrapper)) {
+                model.post(toArray(wrapper));
+                touched += countPropagators(wrapper);
+            }
+        }
+
+        lastTouchedPropagators = touched;
+        return touched;
+    }
+
+    /**
+     * Unposts all posted wrappers.
+     *
+     * @return the number of propagators touched
+     */
+    public int clear() {
+        return switchTo(List.of());
+    }
+
+    private static Constraint[] toArray(ConstraintWrapper wrapper) {
+        return wrapper.getConstraints().toArray(new Constraint[0]);
+    }
+
+    private static int countPropagators(ConstraintWrapper wrapper) {
+        return wrapper.getConstraints().stream().mapToInt(c -> c.getPropagators().length).sum();
+    }
+}
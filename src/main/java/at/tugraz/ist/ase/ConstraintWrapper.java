@@ -8,15 +8,75 @@
 
 package at.tugraz.ist.ase;
 
+import lombok.AccessLevel;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import org.chocosolver.solver.constraints.Constraint;
 
 import java.util.List;
+import java.util.function.Supplier;
 
-@Data
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Wraps the Choco constraints of a constraint of the kb, a restriction or a user requirement.
+ * <p>
+ * A lazy wrapper holds a factory instead of its constraints, they are created on the first access,
+ * e.g., when the wrapper is activated, and can be released once unposted, see {@link MaterializationCache}.
+ * Since the constraints of a lazy wrapper change, wrappers are compared by identity.
+ */
+@Getter
+@Setter
 @Builder
+@ToString(doNotUseGetters = true)
 public class ConstraintWrapper {
     private String name;
+    @Getter(AccessLevel.NONE)
     private List<Constraint> constraints;
+    /**
+     * creates the constraints of a lazy wrapper, null if the constraints are given
+     */
+    @ToString.Exclude
+    private Supplier<List<Constraint>> factory;
+    /**
+     * the user requirement represented by the wrapper, null for constraints of the kb
+     */
+    private Requirement requirement;
+
+    /**
+     * @return the constraints, created by the factory if the wrapper is lazy and not materialized
+     */
+    public List<Constraint> getConstraints() {
+        if (constraints == null && factory != null) {
+            constraints = factory.get();
+        }
+        return constraints;
+    }
+
+    public boolean isLazy() {
+        return factory != null;
+    }
+
+    public boolean isMaterialized() {
+        return constraints != null;
+    }
+
+    /**
+     * @return true if the constraints are posted or reified, i.e., they must not be released
+     */
+    public boolean isInUse() {
+        return constraints != null && constraints.stream().anyMatch(c -> c.getStatus() != Constraint.Status.FREE);
+    }
+
+    /**
+     * Drops the constraints of a lazy wrapper, the factory creates them again on the next access.
+     * The constraints must be neither posted nor reified.
+     */
+    public void release() {
+        checkState(factory != null, "ConstraintWrapper %s is not lazy", name);
+        checkState(!isInUse(), "The constraints of %s are in use", name);
+        constraints = null;
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The solutions of independent components, see {@link ComponentSolver}.
+ * The full solutions are the cartesian product of the component solutions, they are combined on iteration
+ * and never stored. The last component varies fastest, so the order differs from the search of the session.
+ */
+public class DecomposedSolutions implements Iterable<int[]> {
+
+    private final int nbVars;
+    /**
+     * the indices in vars of the variables of each component
+     */
+    @Getter
+    private final List<int[]> components;
+    /**
+     * the solutions of each component, the values of its variables
+     */
+    @Getter
+    private final List<List<int[]>> solutions;
+
+    DecomposedSolutions(int nbVars, @NonNull List<int[]> components, @NonNull List<List<int[]>> solutions) {
+        this.nbVars = nbVars;
+        this.components = Collections.unmodifiableList(components);
+        this.solutions = Collections.unmodifiableList(solutions);
+    }
+
+    public boolean isConsistent() {
+        return solutions.stream().noneMatch(List::isEmpty);
+    }
+
+    /**
+     * @return the number of solutions, i.e., the product of the numbers of component solutions
+     */
+    public BigInteger getCount() {
+        return solutions.stream()
+                .map(s -> BigInteger.valueOf(s.size()))
+                .reduce(BigInteger.ONE, BigInteger::multiply);
+    }
+
+    /**
+     * Iterates over the solutions, each one a new row with the values of the variables in the order of the vars
+     */
+    @Override
+    public Iterator<int[]> iterator() {
+        return new Iterator<>() {
+            /**
+             * the index of the current solution of each component, null before the first solution
+             */
+            private int[] positions = null;
+            private boolean hasNext = isConsistent();
+
+            @Override
+            public boolean hasNext() {
+                return hasNext;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext) {
+                    throw new NoSuchElementException();
+                }
+                if (positions == null) {
+                    positions = new int[components.size()];
+                } else {
+                    advance();
+                }
+
+                int[] row = new int[nbVars];
+                for (int c = 0; c < components.size(); c++) {
+                    int[] vars = components.get(c);
+                    int[] values = solutions.get(c).get(positions[c]);
+                    for (int i = 0; i < vars.length; i++) {
+                        row[vars[i]] = values[i];
+                    }
+                }
+                hasNext = hasSuccessor();
+                return row;
+            }
+
+            private void advance() {
+                int c = components.size() - 1;
+                while (++positions[c] == solutions.get(c).size()) {
+                    positions[c] = 0;
+                    c--;
+                }
+            }
+
+            private boolean hasSuccessor() {
+                for (int c = 0; c < components.size(); c++) {
+                    if (positions[c] < solutions.get(c).size() - 1) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    public Stream<int[]> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED), false);
+    }
+}
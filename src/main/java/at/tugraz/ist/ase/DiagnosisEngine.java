@@ -0,0 +1,275 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Conflict detection (QuickXPlain) and diagnosis (FastDiag) over {@link ConstraintWrapper}s.
+ * User requirements take part as wrappers, see {@link ConfigurationSession#asConstraintWrapper(Requirement)}.
+ * <p>
+ * With an executor, the consistency checks which the algorithms will need next are
+ * run speculatively in parallel (a lookahead of both outcomes of the pending check),
+ * and the algorithms pick up the results when they get there.
+ * The checker must then be thread-safe, e.g., {@link ConsistencyChecker#of(SessionPool)}.
+ * A call returns once its speculative checks are done, those which were not started yet are skipped.
+ * Each call has its own checks, the engine can be shared by threads.
+ */
+public class DiagnosisEngine {
+
+    private final ConsistencyChecker checker;
+    private final ExecutorService executor;
+    private final int lookahead;
+
+    /**
+     * the number of checks of the last call
+     */
+    private volatile int nbChecks = 0;
+
+    /**
+     * A sequential engine
+     */
+    public DiagnosisEngine(@NonNull ConsistencyChecker checker) {
+        this.checker = checker;
+        this.executor = null;
+        this.lookahead = 0;
+    }
+
+    /**
+     * A parallel engine
+     *
+     * @param lookahead the number of levels of speculative checks, up to 2^lookahead - 1 checks run in parallel
+     */
+    public DiagnosisEngine(@NonNull ConsistencyChecker checker, @NonNull ExecutorService executor, int lookahead) {
+        checkArgument(lookahead >= 0, "lookahead must be >= 0");
+
+        this.checker = checker;
+        this.executor = executor;
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * @return the number of consistency checks of the last call, incl. speculative ones
+     */
+    public int getNbChecks() {
+        return nbChecks;
+    }
+
+    /**
+     * QuickXPlain - finds a minimal conflict, i.e., a minimal subset of the candidates
+     * which is inconsistent together with the background.
+     *
+     * @param background the wrappers assumed to be correct, e.g., the kb
+     * @param candidates the wrappers which can be part of the conflict, e.g., restrictions and requirements
+     * @return the conflict, empty if background + candidates is consistent or background is inconsistent
+     */
+    public List<ConstraintWrapper> findConflict(@NonNull Collection<ConstraintWrapper> background,
+                                                @NonNull Collection<ConstraintWrapper> candidates) {
+        try (Call call = new Call()) {
+            List<ConstraintWrapper> b = new ArrayList<>(background);
+            List<ConstraintWrapper> c = new ArrayList<>(candidates);
+            if (c.isEmpty() || !call.isConsistent(b) || call.isConsistent(union(b, c))) {
+                return List.of();
+            }
+            return call.qx(b, List.of(), c);
+        }
+    }
+
+    /**
+     * FastDiag - finds a minimal diagnosis, i.e., a minimal subset of the candidates
+     * whose removal makes background + candidates consistent.
+     *
+     * @param background the wrappers assumed to be correct, e.g., the kb
+     * @param candidates the wrappers which can be part of the diagnosis, e.g., restrictions and requirements
+     * @return the diagnosis, empty if background + candidates is consistent or background is inconsistent
+     */
+    public List<ConstraintWrapper> findDiagnosis(@NonNull Collection<ConstraintWrapper> background,
+                                                 @NonNull Collection<ConstraintWrapper> candidates) {
+        try (Call call = new Call()) {
+            List<ConstraintWrapper> c = new ArrayList<>(candidates);
+            List<ConstraintWrapper> ac = union(new ArrayList<>(background), c);
+            if (c.isEmpty() || !call.isConsistent(new ArrayList<>(background)) || call.isConsistent(ac)) {
+                return List.of();
+            }
+            return call.fd(List.of(), c, ac);
+        }
+    }
+
+    /**
+     * The checks of a call, so that concurrent calls do not share them.
+     * On close, the speculative checks which have not started are skipped and the running ones are awaited,
+     * i.e., the sessions of the checker are released when the call returns.
+     */
+    private final class Call implements AutoCloseable {
+        private final Map<Set<ConstraintWrapper>, CompletableFuture<Boolean>> checks = new ConcurrentHashMap<>();
+        private final AtomicInteger nbChecks = new AtomicInteger();
+        private volatile boolean closed = false;
+
+        private List<ConstraintWrapper> qx(List<ConstraintWrapper> b, List<ConstraintWrapper> delta, List<ConstraintWrapper> c) {
+            if (!delta.isEmpty()) {
+                speculateQX(b, c, lookahead);
+                if (!isConsistent(b)) {
+                    return List.of();
+                }
+            }
+            if (c.size() == 1) {
+                return c;
+            }
+
+            int k = c.size() / 2;
+            List<ConstraintWrapper> c1 = c.subList(0, k);
+            List<ConstraintWrapper> c2 = c.subList(k, c.size());
+
+            List<ConstraintWrapper> delta2 = qx(union(b, c1), c1, c2);
+            List<ConstraintWrapper> delta1 = qx(union(b, delta2), delta2, c1);
+            return union(delta1, delta2);
+        }
+
+        /**
+         * Submits the checks of qx(b ∪ c1, c1, c2) and of its successors,
+         * assuming both outcomes of the pending check.
+         */
+        private void speculateQX(List<ConstraintWrapper> b, List<ConstraintWrapper> c, int depth) {
+            if (executor == null || depth == 0 || c.size() <= 1) {
+                return;
+            }
+
+            int k = c.size() / 2;
+            List<ConstraintWrapper> c1 = c.subList(0, k);
+            List<ConstraintWrapper> c2 = c.subList(k, c.size());
+            List<ConstraintWrapper> bc1 = union(b, c1);
+
+            speculate(bc1);
+            // b ∪ c1 is consistent -> the conflict has elements of c2
+            speculateQX(bc1, c2, depth - 1);
+            // b ∪ c1 is inconsistent -> the conflict is within c1
+            speculateQX(b, c1, depth - 1);
+        }
+
+        private List<ConstraintWrapper> fd(List<ConstraintWrapper> d, List<ConstraintWrapper> c, List<ConstraintWrapper> ac) {
+            if (!d.isEmpty()) {
+                speculateFD(c, ac, lookahead);
+                if (isConsistent(ac)) {
+                    return List.of();
+                }
+            }
+            if (c.size() == 1) {
+                return c;
+            }
+
+            int k = c.size() / 2;
+            List<ConstraintWrapper> c1 = c.subList(0, k);
+            List<ConstraintWrapper> c2 = c.subList(k, c.size());
+
+            List<ConstraintWrapper> d1 = fd(c1, c2, minus(ac, c1));
+            List<ConstraintWrapper> d2 = fd(d1, c1, minus(ac, d1));
+            return union(d1, d2);
+        }
+
+        /**
+         * Submits the checks of fd(c1, c2, ac - c1) and of its successors,
+         * assuming both outcomes of the pending check.
+         */
+        private void speculateFD(List<ConstraintWrapper> c, List<ConstraintWrapper> ac, int depth) {
+            if (executor == null || depth == 0 || c.size() <= 1) {
+                return;
+            }
+
+            int k = c.size() / 2;
+            List<ConstraintWrapper> c1 = c.subList(0, k);
+            List<ConstraintWrapper> c2 = c.subList(k, c.size());
+            List<ConstraintWrapper> acWithoutC1 = minus(ac, c1);
+
+            speculate(acWithoutC1);
+            // ac - c1 is inconsistent -> the diagnosis has elements of c2
+            speculateFD(c2, acWithoutC1, depth - 1);
+            // ac - c1 is consistent -> the diagnosis is within c1
+            speculateFD(c1, ac, depth - 1);
+        }
+
+        private void speculate(List<ConstraintWrapper> constraints) {
+            checks.computeIfAbsent(new HashSet<>(constraints),
+                    key -> CompletableFuture.supplyAsync(() -> closed ? null : check(key), executor));
+        }
+
+        private boolean isConsistent(List<ConstraintWrapper> constraints) {
+            Set<ConstraintWrapper> key = new HashSet<>(constraints);
+            if (executor == null) {
+                return check(key);
+            }
+
+            CompletableFuture<Boolean> future = checks.get(key);
+            if (future == null) {
+                // not speculated, check it in the calling thread
+                boolean consistent = check(key);
+                checks.putIfAbsent(key, CompletableFuture.completedFuture(consistent));
+                return consistent;
+            }
+
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a consistency check", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Consistency check failed", e.getCause());
+            }
+        }
+
+        private boolean check(Set<ConstraintWrapper> constraints) {
+            nbChecks.incrementAndGet();
+            return checker.isConsistent(constraints);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            boolean interrupted = false;
+            for (CompletableFuture<Boolean> future : checks.values()) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // the result of an unused speculative check does not matter
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            DiagnosisEngine.this.nbChecks = nbChecks.get();
+        }
+    }
+
+    private static List<ConstraintWrapper> union(List<ConstraintWrapper> a, List<ConstraintWrapper> b) {
+        Set<ConstraintWrapper> union = new LinkedHashSet<>(a);
+        union.addAll(b);
+        return new ArrayList<>(union);
+    }
+
+    private static List<ConstraintWrapper> minus(List<ConstraintWrapper> a, List<ConstraintWrapper> b) {
+        Set<ConstraintWrapper> removed = new HashSet<>(b);
+        return a.stream().filter(c -> !removed.contains(c)).toList();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Compares the speculative QuickXPlain and FastDiag of {@link DiagnosisEngine}, running on a {@link SessionPool},
+ * with the sequential engine on random requirements over generated KBs, satisfiable and unsatisfiable ones.
+ * Both engines must return the same conflict and diagnosis, and every session must be back in the pool
+ * when a call returns.
+ * <p>
+ * Usage: DiagnosisEngineCheck [nbKBs] [seed]
+ */
+public class DiagnosisEngineCheck {
+
+    private static final int NB_QUERIES = 10;
+    private static final int POOL_SIZE = 4;
+    private static final int LOOKAHEAD = 3;
+
+    public static void main(String[] args) {
+        int nbKBs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        Random random = new Random(seed);
+
+        ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE);
+        try {
+            for (int i = 0; i < nbKBs; i++) {
+                KnowledgeBaseDefinition definition = KnowledgeBaseGenerator.builder()
+                        .seed(random.nextLong())
+                        .nbVariables(40 + random.nextInt(40))
+                        .nbImplications(100 + random.nextInt(200))
+                        .nbRestrictions(10 + random.nextInt(40))
+                        .satisfiable(random.nextBoolean())
+                        .build().generate();
+                check(definition, executor, random);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static void check(@NonNull KnowledgeBaseDefinition definition, @NonNull ExecutorService executor,
+                      @NonNull Random random) {
+        ConfigurationSession session = definition.createSession();
+        SessionPool pool = new SessionPool(POOL_SIZE, definition::createSession);
+        DiagnosisEngine sequential = new DiagnosisEngine(ConsistencyChecker.of(session));
+        DiagnosisEngine parallel = new DiagnosisEngine(ConsistencyChecker.of(pool), executor, LOOKAHEAD);
+
+        int nbConflicts = 0;
+        for (int i = 0; i < NB_QUERIES; i++) {
+            // restrictions and requirements, at most one requirement per variable
+            Set<String> variables = new LinkedHashSet<>();
+            List<ConstraintWrapper> candidates = new ArrayList<>(session.getRestrictions());
+            for (int j = random.nextInt(15); j > 0; j--) {
+                VariableDefinition variable = definition.getVariables().get(random.nextInt(definition.getVariables().size()));
+                if (variables.add(variable.getName())) {
+                    int value = variable.getValues()[random.nextInt(variable.getValues().length)];
+                    candidates.add(session.asConstraintWrapper(Requirement.of(variable.getName(), value)));
+                }
+            }
+
+            List<String> expected = names(sequential.findConflict(session.getKb(), candidates));
+            List<String> actual = names(parallel.findConflict(session.getKb(), candidates));
+            checkState(expected.equals(actual), "%s: query %s, conflict: expected %s, got %s",
+                    definition.getName(), i, expected, actual);
+            checkState(pool.getAvailable() == POOL_SIZE, "%s: query %s, %s sessions left in the pool after findConflict",
+                    definition.getName(), i, pool.getAvailable());
+
+            expected = names(sequential.findDiagnosis(session.getKb(), candidates));
+            actual = names(parallel.findDiagnosis(session.getKb(), candidates));
+            checkState(expected.equals(actual), "%s: query %s, diagnosis: expected %s, got %s",
+                    definition.getName(), i, expected, actual);
+            checkState(pool.getAvailable() == POOL_SIZE, "%s: query %s, %s sessions left in the pool after findDiagnosis",
+                    definition.getName(), i, pool.getAvailable());
+
+            if (!expected.isEmpty()) {
+                nbConflicts++;
+            }
+        }
+
+        System.out.println(definition.getName() + ": " + NB_QUERIES + " queries ok, " + nbConflicts + " inconsistent");
+    }
+
+    private static List<String> names(List<ConstraintWrapper> wrappers) {
+        return wrappers.stream().map(ConstraintWrapper::getName).toList();
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A compilation pass which fuses the implications x = a => y = b sharing the same variables x and y,
+ * e.g., c1..c5 over modell and anwendung, into a single binary table constraint.
+ * Each implication is posted by Choco as a reification with several propagators,
+ * the table of the group needs one propagator and filters the same values.
+ * <p>
+ * Only implications with one condition and one consequence are fused, the other constraints are kept as is.
+ * A fused group is a {@link ConstraintWrapper} named after its members joined by {@value #SEPARATOR}.
+ * The original names are used to enable or disable constraints, see {@link #wrappers(ConfigurationSession, Collection)},
+ * and to read diagnoses, see {@link #getMembers(ConstraintWrapper)}.
+ */
+public class ImplicationFusion {
+
+    public static final String SEPARATOR = " | ";
+
+    /**
+     * Implications over the same condition and consequence variables, with the tuples allowed by all of them
+     */
+    @Value
+    public static class Group {
+        String name;
+        String conditionVariable;
+        String consequenceVariable;
+        List<ConstraintDefinition> members;
+
+        /**
+         * @param enabled the indices of the enabled members
+         * @return the tuples (x, y) satisfying the enabled members
+         */
+        Tuples tuples(KnowledgeBaseDefinition definition, BitSet enabled) {
+            Tuples tuples = new Tuples(true);
+            for (int a : definition.getVariable(conditionVariable).getValues()) {
+                for (int b : definition.getVariable(consequenceVariable).getValues()) {
+                    boolean allowed = true;
+                    for (int i = enabled.nextSetBit(0); i >= 0 && allowed; i = enabled.nextSetBit(i + 1)) {
+                        ConstraintDefinition member = members.get(i);
+                        allowed = !member.getConditions().get(0).isSatisfiedBy(a)
+                                || member.getConsequences().get(0).isSatisfiedBy(b);
+                    }
+                    if (allowed) {
+                        tuples.add(a, b);
+                    }
+                }
+            }
+            return tuples;
+        }
+    }
+
+    @Getter
+    private final KnowledgeBaseDefinition definition;
+    @Getter
+    private final List<Group> groups;
+
+    /**
+     * the group of each fused member
+     */
+    private final Map<String, Group> groupsByMember = new HashMap<>();
+    private final Map<String, Group> groupsByName = new HashMap<>();
+
+    /**
+     * wrappers of partially enabled groups, per session and enabled members, created on demand
+     */
+    private final Map<ConfigurationSession, Map<String, ConstraintWrapper>> subsets = new WeakHashMap<>();
+    /**
+     * the members of the wrappers of partially enabled groups, by name
+     */
+    private final Map<String, List<String>> subsetMembers = new HashMap<>();
+
+    public ImplicationFusion(@NonNull KnowledgeBaseDefinition definition) {
+        this.definition = definition;
+
+        List<Group> groups = new ArrayList<>();
+        groups.addAll(findGroups(definition.getKb()));
+        groups.addAll(findGroups(definition.getRestrictions()));
+        this.groups = Collections.unmodifiableList(groups);
+
+        for (Group group : groups) {
+            group.getMembers().forEach(m -> groupsByMember.put(m.getName(), group));
+            groupsByName.put(group.getName(), group);
+        }
+    }
+
+    /**
+     * Groups the fusable implications of kb or of restrictions, in the order of their first member
+     */
+    private static List<Group> findGroups(List<ConstraintDefinition> constraints) {
+        Map<List<String>, List<ConstraintDefinition>> candidates = new LinkedHashMap<>();
+        for (ConstraintDefinition constraint : constraints) {
+            if (constraint.getConditions().size() == 1 && constraint.getConsequences().size() == 1) {
+                String x = constraint.getConditions().get(0).getVariable();
+                String y = constraint.getConsequences().get(0).getVariable();
+                if (!x.equals(y)) {
+                    candidates.computeIfAbsent(List.of(x, y), k -> new ArrayList<>()).add(constraint);
+                }
+            }
+        }
+
+        return candidates.entrySet().stream()
+                .filter(e -> e.getValue().size() > 1)
+                .map(e -> new Group(
+                        e.getValue().stream().map(ConstraintDefinition::getName).collect(Collectors.joining(SEPARATOR)),
+                        e.getKey().get(0), e.getKey().get(1), List.copyOf(e.getValue())))
+                .toList();
+    }
+
+    /**
+     * @return the number of wrappers of a fused session
+     */
+    public int getNbWrappers() {
+        return definition.getNbConstraints() - groupsByMember.size() + groups.size();
+    }
+
+    /**
+     * Creates a session whose wrappers are the groups and the constraints which are not fused,
+     * a group takes the place of its first member.
+     */
+    public ConfigurationSession createSession() {
+        Model model = new Model(definition.getName());
+        IntVar[] vars = definition.createVariables(model);
+        Map<String, IntVar> varsByName = new HashMap<>();
+        for (IntVar var : vars) {
+            varsByName.put(var.getName(), var);
+        }
+        Function<String, IntVar> lookup = name -> {
+            IntVar var = varsByName.get(name);
+            checkArgument(var != null, "Unknown variable %s", name);
+            return var;
+        };
+
+        // post all wrappers first and slice the constraints afterwards, as KnowledgeBaseDefinition
+        List<String> names = new ArrayList<>();
+        List<Integer> bounds = new ArrayList<>();
+        int nbKb = post(model, lookup, definition.getKb(), names, bounds);
+        post(model, lookup, definition.getRestrictions(), names, bounds);
+        bounds.add(model.getNbCstrs());
+
+        List<ConstraintWrapper> kb = new ArrayList<>();
+        List<ConstraintWrapper> restrictions = new ArrayList<>();
+        List<Constraint> cstrs = Arrays.asList(model.getCstrs());
+        for (int i = 0; i < names.size(); i++) {
+            ConstraintWrapper wrapper = ConstraintWrapper.builder()
+                    .name(names.get(i))
+                    .constraints(new ArrayList<>(cstrs.subList(bounds.get(i), bounds.get(i + 1))))
+                    .build();
+            (i < nbKb ? kb : restrictions).add(wrapper);
+        }
+
+        // remove/unpost all created constraints
+        model.unpost(model.getCstrs());
+
+        ConfigurationSession session = new ConfigurationSession(model, vars, kb, restrictions);
+        session.setFusion(this);
+        return session;
+    }
+
+    /**
+     * Posts the groups and the constraints which are not fused, and records the name and the first constraint of each
+     *
+     * @return the number of wrappers
+     */
+    private int post(Model model, Function<String, IntVar> vars, List<ConstraintDefinition> constraints,
+                     List<String> names, List<Integer> bounds) {
+        int nbWrappers = 0;
+        for (ConstraintDefinition constraint : constraints) {
+            Group group = groupsByMember.get(constraint.getName());
+            if (group == null) {
+                names.add(constraint.getName());
+                bounds.add(model.getNbCstrs());
+                constraint.post(model, vars);
+                nbWrappers++;
+            } else if (group.getMembers().get(0) == constraint) {
+                BitSet all = new BitSet();
+                all.set(0, group.getMembers().size());
+
+                names.add(group.getName());
+                bounds.add(model.getNbCstrs());
+                table(model, vars, group, all).post();
+                nbWrappers++;
+            }
+        }
+        return nbWrappers;
+    }
+
+    private Constraint table(Model model, Function<String, IntVar> vars, Group group, BitSet enabled) {
+        return model.table(vars.apply(group.getConditionVariable()), vars.apply(group.getConsequenceVariable()),
+                group.tuples(definition, enabled));
+    }
+
+    /**
+     * Gets the wrappers of a fused session which enable exactly the given constraints of the definition.
+     * A group whose members are all enabled is its wrapper, a partially enabled group
+     * is an unposted table over the enabled members, created once per session.
+     *
+     * @param session a session created by {@link #createSession()}
+     * @param names the names of the constraints of the definition to enable
+     */
+    public List<ConstraintWrapper> wrappers(@NonNull ConfigurationSession session, @NonNull Collection<String> names) {
+        Map<Group, BitSet> enabled = new LinkedHashMap<>();
+        Set<ConstraintWrapper> wrappers = new LinkedHashSet<>();
+        for (String name : names) {
+            Group group = groupsByMember.get(name);
+            if (group == null) {
+                wrappers.add(session.getWrapper(name));
+            } else {
+                enabled.computeIfAbsent(group, g -> new BitSet())
+                        .set(group.getMembers().indexOf(groupMember(group, name)));
+            }
+        }
+
+        enabled.forEach((group, members) -> {
+            if (members.cardinality() == group.getMembers().size()) {
+                wrappers.add(session.getWrapper(group.getName()));
+            } else {
+                wrappers.add(subset(session, group, members));
+            }
+        });
+        return new ArrayList<>(wrappers);
+    }
+
+    /**
+     * Splits a wrapper of a fused session into one wrapper per member,
+     * e.g., to refine a diagnosis containing a group to its members.
+     */
+    public List<ConstraintWrapper> split(@NonNull ConfigurationSession session, @NonNull ConstraintWrapper wrapper) {
+        Group group = groupsByName.get(wrapper.getName());
+        if (group == null) {
+            return List.of(wrapper);
+        }
+        return group.getMembers().stream()
+                .map(m -> wrappers(session, List.of(m.getName())).get(0))
+                .toList();
+    }
+
+    /**
+     * @return the names of the constraints of the definition in the wrapper, e.g., in a diagnosis
+     */
+    public List<String> getMembers(@NonNull ConstraintWrapper wrapper) {
+        Group group = groupsByName.get(wrapper.getName());
+        if (group != null) {
+            return group.getMembers().stream().map(ConstraintDefinition::getName).toList();
+        }
+        synchronized (subsets) {
+            // a partially enabled group or a constraint which is not fused
+            return subsetMembers.getOrDefault(wrapper.getName(), List.of(wrapper.getName()));
+        }
+    }
+
+    /**
+     * @return the names of the constraints of the definition in the wrappers
+     */
+    public List<String> getMembers(@NonNull Collection<ConstraintWrapper> wrappers) {
+        return wrappers.stream().flatMap(w -> getMembers(w).stream()).toList();
+    }
+
+    /**
+     * @return the wrapper of the session over the members of a partially enabled group of another session,
+     * e.g., created by {@link #split}, null if the wrapper is not a partially enabled group
+     */
+    ConstraintWrapper counterpart(ConfigurationSession session, ConstraintWrapper wrapper) {
+        List<String> names;
+        synchronized (subsets) {
+            names = subsetMembers.get(wrapper.getName());
+        }
+        return names == null ? null : wrappers(session, names).get(0);
+    }
+
+    private static ConstraintDefinition groupMember(Group group, String name) {
+        return group.getMembers().stream()
+                .filter(m -> m.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private ConstraintWrapper subset(ConfigurationSession session, Group group, BitSet members) {
+        List<String> names = members.stream()
+                .mapToObj(i -> group.getMembers().get(i).getName())
+                .toList();
+        String name = String.join(SEPARATOR, names);
+        synchronized (subsets) {
+            subsetMembers.put(name, names);
+            return subsets.computeIfAbsent(session, s -> new HashMap<>())
+                    .computeIfAbsent(name, n -> ConstraintWrapper.builder()
+                            .name(n)
+                            .constraints(List.of(table(session.getModel(), session::getVar, group, members)))
+                            .build());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Finds a solution after each change of an interactive configuration, reusing what previous queries found
+ * instead of starting from scratch as {@link ConfigurationSession#findSolutions} does after {@code solver.reset()}.
+ * <ul>
+ *     <li>the previous solution is kept if it still satisfies the requirements and the wrappers,
+ *     which is checked by propagation only</li>
+ *     <li>otherwise, the search is warm-started with the previous solution as hints,
+ *     so that it changes as few variables as possible</li>
+ *     <li>an inconsistent query is recorded as a nogood, i.e., its requirements are inconsistent
+ *     with its wrappers, and answers any later query with more requirements and more wrappers.
+ *     A nogood is dropped when one of its wrappers is removed.</li>
+ * </ul>
+ * The first solution may thus differ from the first solution of {@link ConfigurationSession#findSolutions}.
+ * Not thread-safe, as the session.
+ */
+public class IncrementalSolver {
+
+    public enum Outcome { REUSED, NOGOOD, SEARCHED }
+
+    /**
+     * Requirements which are inconsistent with the wrappers
+     */
+    private static final class Nogood {
+        final Set<Requirement> requirements;
+        final Set<ConstraintWrapper> wrappers;
+
+        Nogood(Collection<Requirement> requirements, Set<ConstraintWrapper> wrappers) {
+            this.requirements = new HashSet<>(requirements);
+            this.wrappers = wrappers;
+        }
+    }
+
+    private final ConfigurationSession session;
+    private final int maxNogoods;
+    private final LinkedList<Nogood> nogoods = new LinkedList<>();
+
+    /**
+     * the last solution found, null before the first one
+     */
+    private int[] previous = null;
+
+    /**
+     * How the last query was answered
+     */
+    @Getter
+    private Outcome lastOutcome = null;
+    @Getter
+    private long lastNodes = 0;
+
+    public IncrementalSolver(@NonNull ConfigurationSession session) {
+        this(session, 1000);
+    }
+
+    /**
+     * @param maxNogoods the number of nogoods kept, the oldest ones are dropped first
+     */
+    public IncrementalSolver(@NonNull ConfigurationSession session, int maxNogoods) {
+        checkArgument(maxNogoods >= 0, "maxNogoods must be >= 0");
+        this.session = session;
+        this.maxNogoods = maxNogoods;
+    }
+
+    public int getNbNogoods() {
+        return nogoods.size();
+    }
+
+    /**
+     * Finds a solution of the wrappers and requirements.
+     *
+     * @return the values of the vars, empty if there is no solution
+     */
+    public Optional<int[]> findSolution(@NonNull Collection<ConstraintWrapper> constraints,
+                                        @NonNull Collection<Requirement> requirements) {
+        requirements.forEach(r -> session.getVar(r.getVariable()));
+        Set<ConstraintWrapper> active = Collections.newSetFromMap(new IdentityHashMap<>());
+        active.addAll(constraints);
+        lastNodes = 0;
+
+        if (isKnownInconsistent(active, requirements)) {
+            lastOutcome = Outcome.NOGOOD;
+            return Optional.empty();
+        }
+        if (previous != null && isSolution(previous, constraints, requirements)) {
+            lastOutcome = Outcome.REUSED;
+            return Optional.of(previous.clone());
+        }
+
+        lastOutcome = Outcome.SEARCHED;
+        int[] solution = search(constraints, requirements);
+        if (solution == null) {
+            record(requirements, active);
+            return Optional.empty();
+        }
+        previous = solution;
+        return Optional.of(solution.clone());
+    }
+
+    /**
+     * Drops the nogoods and the previous solution.
+     */
+    public void clear() {
+        nogoods.clear();
+        previous = null;
+    }
+
+    /**
+     * Drops the nogoods with removed wrappers and looks for a nogood of the query
+     */
+    private boolean isKnownInconsistent(Set<ConstraintWrapper> active, Collection<Requirement> requirements) {
+        Set<Requirement> query = new HashSet<>(requirements);
+        boolean found = false;
+        Iterator<Nogood> iterator = nogoods.iterator();
+        while (iterator.hasNext()) {
+            Nogood nogood = iterator.next();
+            if (!active.containsAll(nogood.wrappers)) {
+                iterator.remove();
+            } else if (!found && query.containsAll(nogood.requirements)) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    private void record(Collection<Requirement> requirements, Set<ConstraintWrapper> active) {
+        if (maxNogoods == 0) {
+            return;
+        }
+        if (nogoods.size() == maxNogoods) {
+            nogoods.removeFirst();
+        }
+        nogoods.add(new Nogood(requirements, active));
+    }
+
+    /**
+     * Checks the solution by propagation from the root fixpoint of the wrappers
+     */
+    private boolean isSolution(int[] solution, Collection<ConstraintWrapper> constraints,
+                               Collection<Requirement> requirements) {
+        for (Requirement requirement : requirements) {
+            if (solution[session.getVarIndex(requirement.getVariable())] != requirement.getValue()) {
+                return false;
+            }
+        }
+        if (!session.openPropagation(constraints)) {
+            return false;
+        }
+
+        IntVar[] vars = session.getVars();
+        List<Requirement> assignment = new ArrayList<>(vars.length);
+        for (int i = 0; i < vars.length; i++) {
+            assignment.add(Requirement.of(vars[i].getName(), solution[i]));
+        }
+        session.getModel().getEnvironment().worldPush();
+        try {
+            return session.propagate(assignment);
+        } finally {
+            session.getModel().getEnvironment().worldPopUntil(session.getPropagationWorldIndex());
+        }
+    }
+
+    /**
+     * Searches the first solution, with the previous solution as hints
+     */
+    private int[] search(Collection<ConstraintWrapper> constraints, Collection<Requirement> requirements) {
+        Solver solver = session.getModel().getSolver();
+        // the hints wrap the search only once the search starts, i.e., not if the requirements fail
+        AbstractStrategy<?> search = solver.getSearch();
+        if (previous != null) {
+            IntVar[] vars = session.getVars();
+            for (int i = 0; i < vars.length; i++) {
+                solver.addHint(vars[i], previous[i]);
+            }
+        }
+
+        try (SolutionIterator iterator = session.iterator(constraints, requirements)) {
+            long nodes = solver.getNodeCount();
+            int[] solution = iterator.hasNext() ? iterator.next().clone() : null;
+            lastNodes = solver.getNodeCount() - nodes;
+            return solution;
+        } finally {
+            if (previous != null) {
+                solver.removeHints();
+                // back to the search of the session
+                solver.setSearch(search);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+import lombok.Value;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Attributes propagator calls, filterings, failures and propagation time to the {@link ConstraintWrapper}s
+ * (by name, summed over all sessions) and records latency histograms of the queries.
+ * <p>
+ * Disabled by default. When disabled, sessions use the default propagation engine and
+ * a query only checks the flag. When enabled, each session switches to an {@link InstrumentedEngine}
+ * at its next query. Available programmatically with {@link #snapshot()} and through JMX
+ * as "at.tugraz.ist.ase:type=Instrumentation" after {@link #registerMBean()}.
+ */
+public class Instrumentation implements InstrumentationMXBean {
+
+    public enum Query { SOLVE, PROPAGATE }
+
+    /**
+     * the wrapper of the propagators which belong to no wrapper of the session
+     */
+    public static final String OTHER = "(other)";
+
+    public static final String OBJECT_NAME = "at.tugraz.ist.ase:type=Instrumentation";
+
+    private static final Instrumentation instance = new Instrumentation();
+
+    private volatile boolean enabled = false;
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final Map<Query, Histogram> latencies = new EnumMap<>(Query.class);
+
+    private Instrumentation() {
+        for (Query query : Query.values()) {
+            latencies.put(query, new Histogram());
+        }
+    }
+
+    public static Instrumentation get() {
+        return instance;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Registers the instrumentation in the platform MBean server, if not registered yet.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * @return the counters of the wrapper, shared by all sessions
+     */
+    Counters counters(@NonNull String wrapper) {
+        return counters.computeIfAbsent(wrapper, w -> new Counters());
+    }
+
+    public void recordLatency(@NonNull Query query, long nanos) {
+        if (enabled) {
+            latencies.get(query).record(nanos);
+        }
+    }
+
+    @Override
+    public List<WrapperStatistics> getWrapperStatistics() {
+        List<WrapperStatistics> statistics = new ArrayList<>(counters.size());
+        counters.forEach((name, c) -> statistics.add(new WrapperStatistics(name,
+                c.propagations.sum(), c.filterings.sum(), c.failures.sum(), c.nanos.sum())));
+        statistics.sort(Comparator.comparingLong(WrapperStatistics::getTimeNanos).reversed());
+        return statistics;
+    }
+
+    @Override
+    public List<LatencyStatistics> getLatencyStatistics() {
+        return Arrays.stream(Query.values())
+                .map(q -> latencies.get(q).statistics(q))
+                .toList();
+    }
+
+    /**
+     * @return the wrappers sorted by propagation time, and the latencies of the queries
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(getWrapperStatistics(), getLatencyStatistics());
+    }
+
+    /**
+     * Resets all counters and histograms.
+     */
+    @Override
+    public void reset() {
+        counters.values().forEach(Counters::reset);
+        latencies.values().forEach(Histogram::reset);
+    }
+
+    @Value
+    public static class Snapshot {
+        List<WrapperStatistics> wrappers;
+        List<LatencyStatistics> latencies;
+    }
+
+    @Value
+    public static class WrapperStatistics {
+        String name;
+        /**
+         * the calls of its propagators, on coarse and fine events
+         */
+        long propagations;
+        /**
+         * the domain modifications done by its propagators
+         */
+        long filterings;
+        long failures;
+        long timeNanos;
+    }
+
+    @Value
+    public static class LatencyStatistics {
+        String query;
+        long count;
+        double meanMicros;
+        /**
+         * percentiles are upper bounds of power-of-two buckets
+         */
+        double p50Micros;
+        double p90Micros;
+        double p99Micros;
+        double maxMicros;
+    }
+
+    static final class Counters {
+        final LongAdder propagations = new LongAdder();
+        final LongAdder filterings = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        private void reset() {
+            propagations.reset();
+            filterings.reset();
+            failures.reset();
+            nanos.reset();
+        }
+    }
+
+    /**
+     * A histogram of latencies with a bucket per power of two nanoseconds
+     */
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[64];
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            Arrays.setAll(buckets, i -> new LongAdder());
+        }
+
+        void record(long nanos) {
+            nanos = Math.max(nanos, 1);
+            buckets[63 - Long.numberOfLeadingZeros(nanos)].increment();
+            sum.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        LatencyStatistics statistics(Query query) {
+            long[] counts = Arrays.stream(buckets).mapToLong(LongAdder::sum).toArray();
+            long total = Arrays.stream(counts).sum();
+            return new LatencyStatistics(query.name(), total,
+                    total == 0 ? 0 : sum.sum() / 1000.0 / total,
+                    percentile(counts, total, 0.5),
+                    percentile(counts, total, 0.9),
+                    percentile(counts, total, 0.99),
+                    max.get() / 1000.0);
+        }
+
+        private static double percentile(long[] counts, long total, double p) {
+            long rank = (long) Math.ceil(p * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.pow(2, i + 1) / 1000.0;
+                }
+            }
+            return 0;
+        }
+
+        void reset() {
+            Arrays.stream(buckets).forEach(LongAdder::reset);
+            sum.reset();
+            max.reset();
+        }
+    }
+}
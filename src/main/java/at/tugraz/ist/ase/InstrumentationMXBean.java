@@ -0,0 +1,30 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import java.util.List;
+
+/**
+ * JMX view of {@link Instrumentation}
+ */
+public interface InstrumentationMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return the statistics of each wrapper, sorted by propagation time
+     */
+    List<Instrumentation.WrapperStatistics> getWrapperStatistics();
+
+    List<Instrumentation.LatencyStatistics> getLatencyStatistics();
+
+    void reset();
+}
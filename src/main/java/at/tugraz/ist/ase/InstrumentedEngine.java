@@ -0,0 +1,108 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.propagation.PropagationEngineObserver;
+import org.chocosolver.solver.propagation.PropagationObserver;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.events.IEventType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A propagation engine which records the calls, filterings, failures and time of each propagator
+ * into the {@link Instrumentation} counters of its {@link ConstraintWrapper}.
+ */
+class InstrumentedEngine extends PropagationEngineObserver {
+
+    private final Recorder recorder;
+
+    /**
+     * @param owners gets the name of the wrapper of a propagator
+     */
+    InstrumentedEngine(Model model, Function<Propagator<?>, String> owners) {
+        this(model, new Recorder(owners));
+    }
+
+    private InstrumentedEngine(Model model, Recorder recorder) {
+        super(model, recorder);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void execute(Propagator<?> propagator) throws ContradictionException {
+        long start = System.nanoTime();
+        try {
+            super.execute(propagator);
+        } catch (ContradictionException e) {
+            recorder.onFailure(e.c, propagator);
+            throw e;
+        } finally {
+            recorder.counters(propagator).nanos.add(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected void propagateEvents() throws ContradictionException {
+        Propagator<?> propagator = lastProp;
+        long start = System.nanoTime();
+        try {
+            super.propagateEvents();
+        } finally {
+            recorder.counters(propagator).nanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private static final class Recorder implements PropagationObserver {
+
+        private final Function<Propagator<?>, String> owners;
+        /**
+         * by owner, the propagators of released lazy wrappers are not kept
+         */
+        private final Map<String, Instrumentation.Counters> counters = new HashMap<>();
+
+        Recorder(Function<Propagator<?>, String> owners) {
+            this.owners = owners;
+        }
+
+        Instrumentation.Counters counters(Propagator<?> propagator) {
+            return counters.computeIfAbsent(owners.apply(propagator), o -> Instrumentation.get().counters(o));
+        }
+
+        @Override
+        public void onCoarseEvent(Propagator<?> propagator) {
+            counters(propagator).propagations.increment();
+        }
+
+        @Override
+        public void onFineEvent(Propagator<?> propagator) {
+            counters(propagator).propagations.increment();
+        }
+
+        @Override
+        public void onFailure(ICause cause, Propagator<?> propagator) {
+            counters(cause instanceof Propagator<?> p ? p : propagator).failures.increment();
+        }
+
+        @Override
+        public void onFiltering(ICause cause, Propagator<?> propagator) {
+            counters(cause instanceof Propagator<?> p ? p : propagator).filterings.increment();
+        }
+
+        @Override
+        public void onVariableModification(Variable variable, IEventType type, ICause cause) {
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Definition of a knowledge base, i.e., variables, constraints of the kb and restrictions.
+ * It creates both the approach-1 shape (all constraints posted) and
+ * the approach-2 shape (constraints grouped into {@link ConstraintWrapper}s).
+ */
+@Value
+@Builder
+public class KnowledgeBaseDefinition {
+    @NonNull String name;
+    @Singular List<VariableDefinition> variables;
+    @Singular("kbConstraint") List<ConstraintDefinition> kb;
+    @Singular List<ConstraintDefinition> restrictions;
+
+    public int getNbConstraints() {
+        return kb.size() + restrictions.size();
+    }
+
+    public VariableDefinition getVariable(@NonNull String name) {
+        return variables.stream()
+                .filter(v -> v.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown variable " + name));
+    }
+
+    public IntVar[] createVariables(@NonNull Model model) {
+        return variables.stream().map(v -> v.create(model)).toArray(IntVar[]::new);
+    }
+
+    /**
+     * Approach 1 - posts all constraints of kb and restrictions
+     */
+    public void createKB_Approach1(@NonNull Model model, @NonNull IntVar[] vars) {
+        Function<String, IntVar> lookup = lookup(vars);
+
+        kb.forEach(c -> c.post(model, lookup));
+        restrictions.forEach(c -> c.post(model, lookup));
+    }
+
+    /**
+     * Approach 2 - wraps the constraints of each definition into a {@link ConstraintWrapper},
+     * the constraints are posted, call {@code model.unpost(model.getCstrs())} to unpost them.
+     */
+    public void createKB_Approach2(@NonNull Model model, @NonNull IntVar[] vars,
+                                   @NonNull List<ConstraintWrapper> kb,
+                                   @NonNull List<ConstraintWrapper> restrictions) {
+        Function<String, IntVar> lookup = lookup(vars);
+
+        // post all definitions first and slice the constraints afterwards,
+        // since each call of model.getCstrs() copies all constraints
+        List<ConstraintDefinition> definitions = new ArrayList<>(this.kb);
+        definitions.addAll(this.restrictions);
+
+        int[] bounds = new int[definitions.size() + 1];
+        for (int i = 0; i < definitions.size(); i++) {
+            bounds[i] = model.getNbCstrs();
+            definitions.get(i).post(model, lookup);
+        }
+        bounds[definitions.size()] = model.getNbCstrs();
+
+        List<Constraint> cstrs = Arrays.asList(model.getCstrs());
+        for (int i = 0; i < definitions.size(); i++) {
+            // add Choco constraints to ConstraintWrapper
+            ConstraintWrapper wrapper = ConstraintWrapper.builder()
+                    .name(definitions.get(i).getName())
+                    .constraints(new ArrayList<>(cstrs.subList(bounds[i], bounds[i + 1])))
+                    .build();
+            (i < this.kb.size() ? kb : restrictions).add(wrapper);
+        }
+    }
+
+    /**
+     * Creates a new session with the approach-2 shape
+     */
+    public ConfigurationSession createSession() {
+        Model model = new Model(name);
+        IntVar[] vars = createVariables(model);
+
+        List<ConstraintWrapper> kb = new ArrayList<>();
+        List<ConstraintWrapper> restrictions = new ArrayList<>();
+        createKB_Approach2(model, vars, kb, restrictions);
+
+        // remove/unpost all created constraints
+        model.unpost(model.getCstrs());
+
+        return new ConfigurationSession(model, vars, kb, restrictions);
+    }
+
+    /**
+     * Creates a new session with lazy wrappers of the cache, i.e., no Choco constraint is created
+     * until a wrapper is activated, and only the wrappers kept by the cache stay materialized.
+     * The wrappers are table constraints, see {@link ConstraintDefinition#toTable}.
+     */
+    public ConfigurationSession createLazySession(@NonNull MaterializationCache cache) {
+        Model model = new Model(name);
+        IntVar[] vars = createVariables(model);
+        Function<String, IntVar> lookup = lookup(vars);
+        Map<String, int[]> domains = new HashMap<>();
+        variables.forEach(v -> domains.put(v.getName(), v.getValues()));
+
+        List<ConstraintWrapper> kb = this.kb.stream()
+                .map(c -> c.createLazyWrapper(model, lookup, domains::get, cache))
+                .toList();
+        List<ConstraintWrapper> restrictions = this.restrictions.stream()
+                .map(c -> c.createLazyWrapper(model, lookup, domains::get, cache))
+                .toList();
+        ConfigurationSession session = new ConfigurationSession(model, vars, kb, restrictions);
+        session.setMaterializationCache(cache);
+        return session;
+    }
+
+    private static Function<String, IntVar> lookup(IntVar[] vars) {
+        Map<String, IntVar> varsByName = new HashMap<>();
+        for (IntVar var : vars) {
+            varsByName.put(var.getName(), var);
+        }
+        return name -> {
+            IntVar var = varsByName.get(name);
+            checkArgument(var != null, "Unknown variable %s", name);
+            return var;
+        };
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Builder;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A seeded generator of car-style knowledge bases.
+ * <p>
+ * kb - implications x = a => y = b (as c1..c15),
+ * restrictions - x = a /\ y = b => z != c (as c16, c17) and x = a => y != b (as c18).
+ * <p>
+ * The variables of a constraint are chosen within a window of neighbouring variables,
+ * whose width is density * nbVariables, so a low density gives loosely coupled product lines.
+ * All generated constraints are satisfied by a hidden random configuration,
+ * if not satisfiable, two conflicting restrictions are added.
+ */
+@Builder
+public class KnowledgeBaseGenerator {
+    @Builder.Default
+    private final long seed = 42;
+    @Builder.Default
+    private final int nbVariables = 1000;
+    @Builder.Default
+    private final int domainSize = 5;
+    @Builder.Default
+    private final int nbImplications = 10000;
+    @Builder.Default
+    private final int nbRestrictions = 1000;
+    @Builder.Default
+    private final double density = 0.01;
+    @Builder.Default
+    private final boolean satisfiable = true;
+
+    public KnowledgeBaseDefinition generate() {
+        checkArgument(nbVariables >= 3, "nbVariables must be >= 3");
+        checkArgument(domainSize >= 2, "domainSize must be >= 2");
+        checkArgument(nbImplications >= 0 && nbRestrictions >= 0, "the number of constraints must be >= 0");
+        checkArgument(density > 0 && density <= 1, "density must be in (0, 1]");
+
+        Random random = new Random(seed);
+        int window = Math.min(nbVariables, Math.max(3, (int) Math.round(density * nbVariables)));
+
+        KnowledgeBaseDefinition.KnowledgeBaseDefinitionBuilder builder = KnowledgeBaseDefinition.builder()
+                .name("Generated KB " + seed);
+
+        // variables v0..vn with the values 0..domainSize-1
+        int[] values = IntStream.range(0, domainSize).toArray();
+        for (int i = 0; i < nbVariables; i++) {
+            VariableDefinition.VariableDefinitionBuilder variable = VariableDefinition.builder()
+                    .name(variable(i))
+                    .values(values);
+            for (int value : values) {
+                variable.label(variable(i) + "_" + value);
+            }
+            builder.variable(variable.build());
+        }
+
+        // the hidden configuration satisfying all constraints
+        int[] reference = IntStream.range(0, nbVariables).map(i -> random.nextInt(domainSize)).toArray();
+
+        int counter = 0;
+        // kb: x = a => y = b
+        for (int i = 0; i < nbImplications; i++) {
+            int x = random.nextInt(nbVariables);
+            int y = neighbour(random, x, window);
+            int a = random.nextInt(domainSize);
+            int b = reference[x] == a ? reference[y] : random.nextInt(domainSize);
+
+            builder.kbConstraint(ConstraintDefinition.builder()
+                    .name("c" + (++counter))
+                    .condition(Literal.eq(variable(x), a))
+                    .consequence(Literal.eq(variable(y), b))
+                    .build());
+        }
+
+        // restrictions: x = a /\ y = b => z != c, x = a => y != b
+        for (int i = 0; i < nbRestrictions; i++) {
+            int x = random.nextInt(nbVariables);
+            ConstraintDefinition.ConstraintDefinitionBuilder restriction = ConstraintDefinition.builder()
+                    .name("c" + (++counter));
+
+            int a = random.nextInt(domainSize);
+            boolean referenceSatisfiesConditions = reference[x] == a;
+            restriction.condition(Literal.eq(variable(x), a));
+
+            if (random.nextBoolean()) {
+                int y = neighbour(random, x, window);
+                int b = random.nextInt(domainSize);
+                referenceSatisfiesConditions &= reference[y] == b;
+                restriction.condition(Literal.eq(variable(y), b));
+            }
+
+            int z = neighbour(random, x, window);
+            int c = random.nextInt(domainSize);
+            if (referenceSatisfiesConditions && reference[z] == c) {
+                c = (c + 1) % domainSize;
+            }
+            restriction.consequence(Literal.neq(variable(z), c));
+
+            builder.restriction(restriction.build());
+        }
+
+        if (!satisfiable) {
+            // a minimal conflict of two restrictions: v0 = a, v0 != a,
+            // where v0 = a is satisfied by the hidden configuration
+            int a = reference[0];
+            builder.restriction(ConstraintDefinition.builder()
+                    .name("c" + (++counter))
+                    .consequence(Literal.eq(variable(0), a))
+                    .build());
+            builder.restriction(ConstraintDefinition.builder()
+                    .name("c" + (++counter))
+                    .consequence(Literal.neq(variable(0), a))
+                    .build());
+        }
+
+        return builder.build();
+    }
+
+    private static String variable(int index) {
+        return "v" + index;
+    }
+
+    /**
+     * @return a variable different from x within the window around x
+     */
+    private int neighbour(Random random, int x, int window) {
+        int offset;
+        do {
+            offset = random.nextInt(window) - window / 2;
+        } while (offset == 0);
+        return Math.floorMod(x + offset, nbVariables);
+    }
+}
@@ -0,0 +1,441 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Reads and writes the text format of knowledge bases, e.g., car.kb:
+ * <pre>
+ * # comment
+ * name Combeenation Car Model
+ * var modell = 1:limousine, 2:combi, 3:suv, 4:cabrio, 5:van
+ * var motorisierung = 100, 140, 180, 220, 260
+ * kb "modell = limousine => anwendung = pkw": modell = limousine => anwendung = pkw
+ * restriction "Benzin Limousine ...": modell = limousine &amp; antriebsart = benzin => preisgruppe != preisklasse1
+ * </pre>
+ * Values of literals are given by label or by value. Variables must be declared before their use.
+ * In names and labels, the characters of the format are escaped by a backslash, e.g., {@code \"} in a constraint name
+ * or {@code \,} in a label, line breaks as {@code \n} and the whitespace at their ends as well.
+ */
+public class KnowledgeBaseReader {
+
+    /**
+     * Where a name or a label is written, with the characters to escape besides the backslash and the line breaks
+     */
+    private enum Context {
+        /**
+         * the name of the knowledge base, up to the end of the line
+         */
+        NAME("", true),
+        /**
+         * a quoted constraint name
+         */
+        QUOTED("\"", false),
+        /**
+         * a variable name or a label, in declarations and literals
+         */
+        TOKEN("&,:=!", true);
+
+        private final String specials;
+        /**
+         * true if the whitespace at the ends is escaped, since it is stripped while reading
+         */
+        private final boolean edges;
+
+        Context(String specials, boolean edges) {
+            this.specials = specials;
+            this.edges = edges;
+        }
+
+        String escape(String text) {
+            StringBuilder escaped = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\n') {
+                    escaped.append("\\n");
+                } else if (c == '\r') {
+                    escaped.append("\\r");
+                } else if (c == '\\' || specials.indexOf(c) != -1
+                        || (edges && (i == 0 || i == text.length() - 1) && Character.isWhitespace(c))) {
+                    escaped.append('\\').append(c);
+                } else {
+                    escaped.append(c);
+                }
+            }
+            return escaped.toString();
+        }
+
+        /**
+         * Unknown escapes are kept as is, e.g., a backslash in a name written before escaping was introduced
+         */
+        String unescape(String text) {
+            StringBuilder unescaped = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c != '\\' || i + 1 == text.length()) {
+                    unescaped.append(c);
+                    continue;
+                }
+                char next = text.charAt(i + 1);
+                if (next == 'n' || next == 'r') {
+                    unescaped.append(next == 'n' ? '\n' : '\r');
+                    i++;
+                } else if (next == '\\' || specials.indexOf(next) != -1 || (edges && Character.isWhitespace(next))) {
+                    unescaped.append(next);
+                    i++;
+                } else {
+                    unescaped.append(c);
+                }
+            }
+            return unescaped.toString();
+        }
+    }
+
+    /**
+     * Receives the elements of a knowledge base in the order of the text
+     */
+    private interface Listener {
+        void onName(String name);
+
+        void onVariable(VariableDefinition variable);
+
+        void onConstraint(ConstraintDefinition constraint, boolean restriction);
+    }
+
+    /**
+     * Reads the text into a definition.
+     */
+    public static KnowledgeBaseDefinition read(@NonNull Reader reader) throws IOException {
+        KnowledgeBaseDefinition.KnowledgeBaseDefinitionBuilder builder = KnowledgeBaseDefinition.builder().name("");
+        parse(reader, new Listener() {
+            @Override
+            public void onName(String name) {
+                builder.name(name);
+            }
+
+            @Override
+            public void onVariable(VariableDefinition variable) {
+                builder.variable(variable);
+            }
+
+            @Override
+            public void onConstraint(ConstraintDefinition constraint, boolean restriction) {
+                if (restriction) {
+                    builder.restriction(constraint);
+                } else {
+                    builder.kbConstraint(constraint);
+                }
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * Reads a knowledge base from the classpath, e.g., "car.kb".
+     */
+    public static KnowledgeBaseDefinition readResource(@NonNull String name) throws IOException {
+        InputStream stream = KnowledgeBaseReader.class.getClassLoader().getResourceAsStream(name);
+        checkArgument(stream != null, "Resource %s not found", name);
+
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Streams the text into a new session, i.e., variables and constraints are created
+     * while reading, without an intermediate definition.
+     */
+    public static ConfigurationSession load(@NonNull Reader reader) throws IOException {
+        Model model = new Model();
+        List<IntVar> vars = new ArrayList<>();
+        Map<String, IntVar> varsByName = new HashMap<>();
+
+        // the constraints are sliced after reading, see KnowledgeBaseDefinition#createKB_Approach2
+        List<String> names = new ArrayList<>();
+        List<Boolean> isRestriction = new ArrayList<>();
+        List<Integer> bounds = new ArrayList<>();
+
+        parse(reader, new Listener() {
+            @Override
+            public void onName(String name) {
+                model.setName(name);
+            }
+
+            @Override
+            public void onVariable(VariableDefinition variable) {
+                IntVar var = variable.create(model);
+                vars.add(var);
+                varsByName.put(var.getName(), var);
+            }
+
+            @Override
+            public void onConstraint(ConstraintDefinition constraint, boolean restriction) {
+                names.add(constraint.getName());
+                isRestriction.add(restriction);
+                bounds.add(model.getNbCstrs());
+                constraint.post(model, varsByName::get);
+            }
+        });
+        bounds.add(model.getNbCstrs());
+
+        List<ConstraintWrapper> kb = new ArrayList<>();
+        List<ConstraintWrapper> restrictions = new ArrayList<>();
+        List<Constraint> cstrs = Arrays.asList(model.getCstrs());
+        for (int i = 0; i < names.size(); i++) {
+            ConstraintWrapper wrapper = ConstraintWrapper.builder()
+                    .name(names.get(i))
+                    .constraints(new ArrayList<>(cstrs.subList(bounds.get(i), bounds.get(i + 1))))
+                    .build();
+            (isRestriction.get(i) ? restrictions : kb).add(wrapper);
+        }
+
+        // remove/unpost all created constraints
+        model.unpost(model.getCstrs());
+
+        return new ConfigurationSession(model, vars.toArray(new IntVar[0]), kb, restrictions);
+    }
+
+    private static void parse(Reader reader, Listener listener) throws IOException {
+        Map<String, VariableDefinition> variables = new HashMap<>();
+
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = strip(line);
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            try {
+                String keyword = line.split("\\s+", 2)[0];
+                String rest = strip(line.substring(keyword.length()));
+                switch (keyword) {
+                    case "name" -> listener.onName(Context.NAME.unescape(rest));
+                    case "var" -> {
+                        VariableDefinition variable = parseVariable(rest);
+                        checkArgument(variables.put(variable.getName(), variable) == null,
+                                "Variable %s is already declared", variable.getName());
+                        listener.onVariable(variable);
+                    }
+                    case "kb" -> listener.onConstraint(parseConstraint(rest, variables), false);
+                    case "restriction" -> listener.onConstraint(parseConstraint(rest, variables), true);
+                    default -> throw new IllegalArgumentException("Unknown keyword " + keyword);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * modell = 1:limousine, 2:combi, ...
+     */
+    private static VariableDefinition parseVariable(String text) {
+        String[] parts = split(text, "=", 2);
+        checkArgument(parts.length == 2, "Expected <name> = <values>");
+
+        VariableDefinition.VariableDefinitionBuilder builder = VariableDefinition.builder()
+                .name(Context.TOKEN.unescape(strip(parts[0])));
+        String[] values = split(parts[1], ",", -1);
+        int[] domain = new int[values.length];
+        boolean labeled = false;
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            String[] valueAndLabel = split(values[i], ":", 2);
+            domain[i] = Integer.parseInt(valueAndLabel[0].strip());
+            labeled |= valueAndLabel.length == 2;
+            labels.add(valueAndLabel.length == 2
+                    ? Context.TOKEN.unescape(strip(valueAndLabel[1]))
+                    : String.valueOf(domain[i]));
+        }
+        if (labeled) {
+            builder.labels(labels);
+        }
+        return builder.values(domain).build();
+    }
+
+    /**
+     * "name": condition &amp; ... => consequence &amp; ...
+     */
+    private static ConstraintDefinition parseConstraint(String text, Map<String, VariableDefinition> variables) {
+        checkArgument(text.startsWith("\""), "Expected a quoted name");
+        int end = indexOf(text, "\"", 1);
+        checkArgument(end > 0, "Unterminated name");
+
+        String name = Context.QUOTED.unescape(text.substring(1, end));
+        String body = text.substring(end + 1).strip();
+        checkArgument(body.startsWith(":"), "Expected : after the name");
+        body = body.substring(1);
+
+        ConstraintDefinition.ConstraintDefinitionBuilder builder = ConstraintDefinition.builder().name(name);
+        String[] implication = split(body, "=>", 2);
+        String consequences = implication[implication.length - 1];
+        if (implication.length == 2) {
+            parseLiterals(implication[0], variables).forEach(builder::condition);
+        }
+        parseLiterals(consequences, variables).forEach(builder::consequence);
+        return builder.build();
+    }
+
+    private static List<Literal> parseLiterals(String text, Map<String, VariableDefinition> variables) {
+        List<Literal> literals = new ArrayList<>();
+        for (String literal : split(text, "&", -1)) {
+            if (literal.isBlank()) {
+                continue;
+            }
+
+            boolean equal = indexOf(literal, "!=", 0) == -1;
+            String[] parts = split(literal, equal ? "=" : "!=", 2);
+            checkArgument(parts.length == 2, "Expected <variable> = <value> or <variable> != <value>");
+
+            String name = Context.TOKEN.unescape(strip(parts[0]));
+            VariableDefinition variable = variables.get(name);
+            checkArgument(variable != null, "Unknown variable %s", name);
+
+            literals.add(Literal.of(name, equal, parseValue(variable, Context.TOKEN.unescape(strip(parts[1])))));
+        }
+        return literals;
+    }
+
+    /**
+     * @return the index of the first occurrence of the token which is not escaped, -1 if none
+     */
+    private static int indexOf(String text, String token, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (text.charAt(i) == '\\') {
+                i++;
+            } else if (text.startsWith(token, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Splits around the separators which are not escaped, the parts are not unescaped
+     *
+     * @param limit the maximal number of parts, -1 for no limit
+     */
+    private static String[] split(String text, String separator, int limit) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int end;
+        while (parts.size() + 1 != limit && (end = indexOf(text, separator, start)) != -1) {
+            parts.add(text.substring(start, end));
+            start = end + separator.length();
+        }
+        parts.add(text.substring(start));
+        return parts.toArray(new String[0]);
+    }
+
+    /**
+     * Strips the whitespace except an escaped one at the end
+     */
+    private static String strip(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1)) && !isEscaped(text, end - 1)) {
+            end--;
+        }
+        return text.substring(start, end);
+    }
+
+    /**
+     * @return true if the character is preceded by an odd number of backslashes
+     */
+    private static boolean isEscaped(String text, int index) {
+        int backslashes = 0;
+        while (index - backslashes > 0 && text.charAt(index - backslashes - 1) == '\\') {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    private static int parseValue(VariableDefinition variable, String text) {
+        int index = variable.getLabels().indexOf(text);
+        if (index != -1) {
+            return variable.getValues()[index];
+        }
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown value " + text + " of " + variable.getName());
+        }
+    }
+
+    /**
+     * Writes the definition in the text format.
+     */
+    public static void write(@NonNull KnowledgeBaseDefinition definition, @NonNull Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        out.println("name " + Context.NAME.escape(definition.getName()));
+        out.println();
+
+        for (VariableDefinition variable : definition.getVariables()) {
+            out.println("var " + Context.TOKEN.escape(variable.getName()) + " = " + Arrays.stream(variable.getValues())
+                    .mapToObj(v -> variable.getLabels().isEmpty()
+                            ? String.valueOf(v)
+                            : v + ":" + Context.TOKEN.escape(variable.getLabel(v)))
+                    .collect(Collectors.joining(", ")));
+        }
+        out.println();
+
+        definition.getKb().forEach(c -> out.println("kb " + format(c, definition)));
+        definition.getRestrictions().forEach(c -> out.println("restriction " + format(c, definition)));
+
+        out.flush();
+        if (out.checkError()) {
+            throw new UncheckedIOException(new IOException("Cannot write the knowledge base"));
+        }
+    }
+
+    private static String format(ConstraintDefinition constraint, KnowledgeBaseDefinition definition) {
+        String name = "\"" + Context.QUOTED.escape(constraint.getName()) + "\": ";
+        String consequences = format(constraint.getConsequences(), definition);
+        if (constraint.getConditions().isEmpty()) {
+            return name + "=> " + consequences;
+        }
+        return name + format(constraint.getConditions(), definition) + " => " + consequences;
+    }
+
+    private static String format(List<Literal> literals, KnowledgeBaseDefinition definition) {
+        return literals.stream()
+                .map(l -> Context.TOKEN.escape(l.getVariable()) + (l.isEqual() ? " = " : " != ")
+                        + Context.TOKEN.escape(definition.getVariable(l.getVariable()).getLabel(l.getValue())))
+                .collect(Collectors.joining(" & "));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A binary snapshot of a {@link KnowledgeBaseDefinition}, which is read through a memory-mapped file
+ * without tokenizing text.
+ * <p>
+ * Layout (big-endian): magic, version, name, variables, kb constraints, restrictions.
+ * Strings are length-prefixed UTF-8, a variable is its name, values and labels,
+ * a constraint is its name, conditions and consequences, and a literal is
+ * the index of its variable, a flag for = / != and the value.
+ */
+public class KnowledgeBaseSnapshot {
+
+    private static final int MAGIC = 0x4B42534E; // "KBSN"
+    private static final int VERSION = 1;
+
+    public static void write(@NonNull KnowledgeBaseDefinition definition, @NonNull Path path) throws IOException {
+        Map<String, Integer> varIndices = new HashMap<>();
+        List<VariableDefinition> variables = definition.getVariables();
+        for (int i = 0; i < variables.size(); i++) {
+            varIndices.put(variables.get(i).getName(), i);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, definition.getName());
+
+            out.writeInt(variables.size());
+            for (VariableDefinition variable : variables) {
+                writeString(out, variable.getName());
+                out.writeInt(variable.getValues().length);
+                for (int value : variable.getValues()) {
+                    out.writeInt(value);
+                }
+                out.writeInt(variable.getLabels().size());
+                for (String label : variable.getLabels()) {
+                    writeString(out, label);
+                }
+            }
+
+            writeConstraints(out, definition.getKb(), varIndices);
+            writeConstraints(out, definition.getRestrictions(), varIndices);
+        }
+    }
+
+    private static void writeConstraints(DataOutputStream out, List<ConstraintDefinition> constraints,
+                                         Map<String, Integer> varIndices) throws IOException {
+        out.writeInt(constraints.size());
+        for (ConstraintDefinition constraint : constraints) {
+            writeString(out, constraint.getName());
+            writeLiterals(out, constraint.getConditions(), varIndices);
+            writeLiterals(out, constraint.getConsequences(), varIndices);
+        }
+    }
+
+    private static void writeLiterals(DataOutputStream out, List<Literal> literals,
+                                      Map<String, Integer> varIndices) throws IOException {
+        out.writeInt(literals.size());
+        for (Literal literal : literals) {
+            out.writeInt(varIndices.get(literal.getVariable()));
+            out.writeBoolean(literal.isEqual());
+            out.writeInt(literal.getValue());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static KnowledgeBaseDefinition read(@NonNull Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            checkArgument(buffer.getInt() == MAGIC, "%s is not a knowledge base snapshot", path);
+            int version = buffer.getInt();
+            checkArgument(version == VERSION, "Unsupported snapshot version %s", version);
+
+            KnowledgeBaseDefinition.KnowledgeBaseDefinitionBuilder builder = KnowledgeBaseDefinition.builder()
+                    .name(readString(buffer));
+
+            int nbVariables = buffer.getInt();
+            List<VariableDefinition> variables = new ArrayList<>(nbVariables);
+            for (int i = 0; i < nbVariables; i++) {
+                VariableDefinition.VariableDefinitionBuilder variable = VariableDefinition.builder()
+                        .name(readString(buffer));
+                int[] values = new int[buffer.getInt()];
+                buffer.asIntBuffer().get(values);
+                buffer.position(buffer.position() + values.length * Integer.BYTES);
+                int nbLabels = buffer.getInt();
+                for (int j = 0; j < nbLabels; j++) {
+                    variable.label(readString(buffer));
+                }
+                variables.add(variable.values(values).build());
+            }
+            builder.variables(variables);
+
+            int nbKb = buffer.getInt();
+            for (int i = 0; i < nbKb; i++) {
+                builder.kbConstraint(readConstraint(buffer, variables));
+            }
+            int nbRestrictions = buffer.getInt();
+            for (int i = 0; i < nbRestrictions; i++) {
+                builder.restriction(readConstraint(buffer, variables));
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * Reads the snapshot into a new session.
+     */
+    public static ConfigurationSession load(@NonNull Path path) throws IOException {
+        return read(path).createSession();
+    }
+
+    private static ConstraintDefinition readConstraint(ByteBuffer buffer, List<VariableDefinition> variables) {
+        ConstraintDefinition.ConstraintDefinitionBuilder builder = ConstraintDefinition.builder()
+                .name(readString(buffer));
+
+        int nbConditions = buffer.getInt();
+        for (int i = 0; i < nbConditions; i++) {
+            builder.condition(readLiteral(buffer, variables));
+        }
+        int nbConsequences = buffer.getInt();
+        for (int i = 0; i < nbConsequences; i++) {
+            builder.consequence(readLiteral(buffer, variables));
+        }
+        return builder.build();
+    }
+
+    private static Literal readLiteral(ByteBuffer buffer, List<VariableDefinition> variables) {
+        String variable = variables.get(buffer.getInt()).getName();
+        boolean equal = buffer.get() != 0;
+        return Literal.of(variable, equal, buffer.getInt());
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
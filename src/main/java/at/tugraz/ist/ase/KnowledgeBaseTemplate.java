@@ -0,0 +1,168 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A knowledge base compiled once, from which sessions are created cheaply.
+ * <p>
+ * A Choco {@link Model} cannot be copied, since its propagators reference its variables,
+ * so each session still gets its own variables and constraints. The template computes everything
+ * else once and shares it with all its sessions: sorted domains, the variable index of each literal,
+ * the wrapper names and the name -> index maps of {@link ConfigurationSession}.
+ * The wrappers of a new session are left posted, which saves unposting all of them at start-up
+ * and re-posting them on the first query over kb + restrictions.
+ * Thread-safe, {@link #newSession()} can be called concurrently, e.g., as the supplier of a {@link SessionPool}.
+ */
+public class KnowledgeBaseTemplate {
+
+    /**
+     * The literals of a {@link ConstraintDefinition} with variable indices instead of names
+     */
+    private static final class CompiledConstraint {
+        final String name;
+        final int[] conditionVars;
+        final int[] conditionValues;
+        final boolean[] conditionEqual;
+        final int[] consequenceVars;
+        final int[] consequenceValues;
+        final boolean[] consequenceEqual;
+
+        CompiledConstraint(ConstraintDefinition definition, Map<String, Integer> varIndices) {
+            name = definition.getName();
+
+            List<Literal> conditions = definition.getConditions();
+            conditionVars = conditions.stream().mapToInt(l -> indexOf(varIndices, l.getVariable())).toArray();
+            conditionValues = conditions.stream().mapToInt(Literal::getValue).toArray();
+            conditionEqual = new boolean[conditions.size()];
+            for (int i = 0; i < conditions.size(); i++) {
+                conditionEqual[i] = conditions.get(i).isEqual();
+            }
+
+            List<Literal> consequences = definition.getConsequences();
+            consequenceVars = consequences.stream().mapToInt(l -> indexOf(varIndices, l.getVariable())).toArray();
+            consequenceValues = consequences.stream().mapToInt(Literal::getValue).toArray();
+            consequenceEqual = new boolean[consequences.size()];
+            for (int i = 0; i < consequences.size(); i++) {
+                consequenceEqual[i] = consequences.get(i).isEqual();
+            }
+        }
+
+        private static int indexOf(Map<String, Integer> varIndices, String name) {
+            Integer index = varIndices.get(name);
+            checkArgument(index != null, "Unknown variable %s", name);
+            return index;
+        }
+
+        /**
+         * Posts the same Choco constraints as {@link ConstraintDefinition#post}
+         */
+        void post(Model model, IntVar[] vars) {
+            Constraint consequence = and(model, vars, consequenceVars, consequenceValues, consequenceEqual);
+            if (conditionVars.length == 0) {
+                consequence.post();
+            } else {
+                model.ifThen(and(model, vars, conditionVars, conditionValues, conditionEqual), consequence);
+            }
+        }
+
+        private static Constraint and(Model model, IntVar[] vars, int[] indices, int[] values, boolean[] equal) {
+            if (indices.length == 1) {
+                return model.arithm(vars[indices[0]], equal[0] ? "=" : "!=", values[0]);
+            }
+            Constraint[] literals = new Constraint[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                literals[i] = model.arithm(vars[indices[i]], equal[i] ? "=" : "!=", values[i]);
+            }
+            return model.and(literals);
+        }
+    }
+
+    @Getter
+    private final KnowledgeBaseDefinition definition;
+
+    private final String[] varNames;
+    /**
+     * sorted values of each variable
+     */
+    private final int[][] domains;
+    /**
+     * kb first, then restrictions
+     */
+    private final CompiledConstraint[] constraints;
+    private final int nbKb;
+    private final Map<String, Integer> varIndices;
+    private final Map<String, Integer> wrapperIndices;
+
+    public KnowledgeBaseTemplate(@NonNull KnowledgeBaseDefinition definition) {
+        this.definition = definition;
+
+        List<VariableDefinition> variables = definition.getVariables();
+        varNames = variables.stream().map(VariableDefinition::getName).toArray(String[]::new);
+        domains = new int[variables.size()][];
+        for (int i = 0; i < domains.length; i++) {
+            domains[i] = Arrays.stream(variables.get(i).getValues()).sorted().distinct().toArray();
+        }
+        varIndices = ConfigurationSession.indexByName(Arrays.asList(varNames));
+
+        constraints = Stream.concat(definition.getKb().stream(), definition.getRestrictions().stream())
+                .map(c -> new CompiledConstraint(c, varIndices))
+                .toArray(CompiledConstraint[]::new);
+        nbKb = definition.getKb().size();
+        wrapperIndices = ConfigurationSession.indexByName(Arrays.stream(constraints).map(c -> c.name).toList());
+    }
+
+    /**
+     * Creates a new session with the wrappers of {@link KnowledgeBaseDefinition#createSession()},
+     * unlike it, all wrappers are left posted: a first query over kb + restrictions switches nothing,
+     * a first query over another subset of the wrappers unposts the others.
+     */
+    public ConfigurationSession newSession() {
+        Model model = new Model(definition.getName());
+
+        IntVar[] vars = new IntVar[varNames.length];
+        for (int i = 0; i < vars.length; i++) {
+            vars[i] = model.intVar(varNames[i], domains[i]);
+        }
+
+        int[] bounds = new int[constraints.length + 1];
+        for (int i = 0; i < constraints.length; i++) {
+            bounds[i] = model.getNbCstrs();
+            constraints[i].post(model, vars);
+        }
+        bounds[constraints.length] = model.getNbCstrs();
+
+        List<ConstraintWrapper> kb = new ArrayList<>(nbKb);
+        List<ConstraintWrapper> restrictions = new ArrayList<>(constraints.length - nbKb);
+        List<Constraint> cstrs = Arrays.asList(model.getCstrs());
+        for (int i = 0; i < constraints.length; i++) {
+            ConstraintWrapper wrapper = ConstraintWrapper.builder()
+                    .name(constraints[i].name)
+                    .constraints(new ArrayList<>(cstrs.subList(bounds[i], bounds[i + 1])))
+                    .build();
+            (i < nbKb ? kb : restrictions).add(wrapper);
+        }
+
+        // the constraints stay posted, the first switch of the session unposts only the unused wrappers
+        return new ConfigurationSession(model, vars, kb, restrictions, varIndices, wrapperIndices, true);
+    }
+}
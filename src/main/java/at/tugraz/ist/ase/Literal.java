@@ -0,0 +1,46 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+import lombok.Value;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.variables.IntVar;
+
+/**
+ * An arithmetic literal of a constraint definition, i.e., variable = value or variable != value
+ */
+@Value(staticConstructor = "of")
+public class Literal {
+    @NonNull String variable;
+    boolean equal;
+    int value;
+
+    public static Literal eq(@NonNull String variable, int value) {
+        return of(variable, true, value);
+    }
+
+    public static Literal neq(@NonNull String variable, int value) {
+        return of(variable, false, value);
+    }
+
+    public boolean isSatisfiedBy(int value) {
+        return equal == (this.value == value);
+    }
+
+    public Constraint toConstraint(@NonNull Model model, @NonNull IntVar var) {
+        return model.arithm(var, equal ? "=" : "!=", value);
+    }
+
+    @Override
+    public String toString() {
+        return variable + (equal ? " = " : " != ") + value;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.chocosolver.solver.constraints.Constraint;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Creates lazy {@link ConstraintWrapper}s and bounds the number of materialized ones.
+ * <p>
+ * When a wrapper is materialized beyond the bound, or when a session has unposted wrappers,
+ * the least recently materialized wrappers are released down to the bound,
+ * except the ones whose constraints are in use, i.e., posted or reified, which are kept as recently used.
+ * The memory thus grows with the active wrappers rather than with the size of the kb,
+ * the active wrappers alone may exceed the bound.
+ * The factories must not create variables, since the variables of released constraints stay in the model.
+ * Not thread-safe, as the session of the wrappers.
+ */
+public class MaterializationCache {
+
+    @Getter
+    private final int maxSize;
+    /**
+     * the materialized wrappers, from the least to the most recently used
+     */
+    private final Map<ConstraintWrapper, Boolean> materialized = new LinkedHashMap<>();
+
+    @Getter
+    private long nbMaterializations = 0;
+    @Getter
+    private long nbReleases = 0;
+
+    /**
+     * @param maxSize the number of materialized wrappers which are kept
+     */
+    public MaterializationCache(int maxSize) {
+        checkArgument(maxSize > 0, "maxSize must be > 0");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return a lazy wrapper whose constraints are created by the factory
+     */
+    public ConstraintWrapper wrap(@NonNull String name, @NonNull Supplier<List<Constraint>> factory) {
+        ConstraintWrapper wrapper = ConstraintWrapper.builder().name(name).build();
+        wrapper.setFactory(() -> {
+            List<Constraint> constraints = factory.get();
+            admit(wrapper);
+            return constraints;
+        });
+        return wrapper;
+    }
+
+    /**
+     * @return the number of materialized wrappers
+     */
+    public int getSize() {
+        return materialized.size();
+    }
+
+    /**
+     * Releases the least recently used wrappers which are not in use until at most maxSize are left,
+     * e.g., after a switch unposted the wrappers of a large query, see {@link ConfigurationSession}.
+     */
+    public void trim() {
+        release(null, maxSize);
+    }
+
+    /**
+     * Releases all materialized wrappers which are not in use.
+     */
+    public void clear() {
+        release(null, 0);
+    }
+
+    private void admit(ConstraintWrapper wrapper) {
+        nbMaterializations++;
+        materialized.put(wrapper, Boolean.TRUE);
+        release(wrapper, maxSize);
+    }
+
+    /**
+     * Releases the least recently used wrappers until at most size are left,
+     * the wrappers in use are moved to the most recently used end
+     */
+    private void release(ConstraintWrapper admitted, int size) {
+        List<ConstraintWrapper> inUse = new ArrayList<>();
+        Iterator<ConstraintWrapper> iterator = materialized.keySet().iterator();
+        while (materialized.size() + inUse.size() > size && iterator.hasNext()) {
+            ConstraintWrapper wrapper = iterator.next();
+            // the admitted wrapper is being materialized, it is not assigned yet
+            if (wrapper == admitted) {
+                continue;
+            }
+            iterator.remove();
+            if (wrapper.isInUse()) {
+                inUse.add(wrapper);
+            } else if (wrapper.isMaterialized()) {
+                wrapper.release();
+                nbReleases++;
+            }
+        }
+        inUse.forEach(w -> materialized.put(w, Boolean.TRUE));
+    }
+}
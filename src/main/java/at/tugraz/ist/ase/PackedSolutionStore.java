@@ -0,0 +1,283 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Keeps many solutions packed into bit fields, each variable takes the bits of the index of its value
+ * in its domain, e.g., 14 bits per solution of the car model instead of a String.
+ * <p>
+ * The solutions are stored in chunks outside the heap, so that hundreds of millions of solutions
+ * cause no GC pressure. Once the chunks in memory reach the spill threshold, the next chunks are
+ * regions of a memory-mapped file, which the OS pages in and out. A solution never spans two chunks.
+ * <p>
+ * Read a solution with {@link #get(long)} or scan all of them with {@link #scan()}.
+ * Not thread-safe while adding, concurrent reads are safe once adding is done.
+ */
+public class PackedSolutionStore implements Consumer<int[]>, AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4 << 20;
+
+    /**
+     * sorted values of each variable
+     */
+    private final int[][] domains;
+    /**
+     * the bit width and the bit offset of each variable in a solution
+     */
+    private final int[] widths;
+    private final int[] offsets;
+    @Getter
+    private final int bitsPerSolution;
+
+    private final int solutionsPerChunk;
+    private final int chunkBytes;
+    private final long spillThreshold;
+    private final Path spillFile;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private FileChannel channel = null;
+    private int nbChunksInMemory = 0;
+
+    @Getter
+    private long size = 0;
+    private boolean closed = false;
+
+    /**
+     * Keeps all solutions in memory
+     */
+    public PackedSolutionStore(@NonNull int[][] domains) {
+        this(domains, DEFAULT_CHUNK_SIZE, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * @param domains the values of each variable, in the order of the rows
+     * @param chunkSize the number of bytes of a chunk
+     * @param spillThreshold the number of bytes in memory from which the chunks are mapped from the spill file
+     * @param spillFile the file of the spilled chunks, created or truncated on the first spill and deleted on close,
+     *                  null to keep all chunks in memory
+     */
+    public PackedSolutionStore(@NonNull int[][] domains, int chunkSize, long spillThreshold, Path spillFile) {
+        checkArgument(spillThreshold >= 0, "spillThreshold must be >= 0");
+
+        this.domains = new int[domains.length][];
+        this.widths = new int[domains.length];
+        this.offsets = new int[domains.length];
+        int bits = 0;
+        for (int i = 0; i < domains.length; i++) {
+            this.domains[i] = Arrays.stream(domains[i]).sorted().distinct().toArray();
+            checkArgument(this.domains[i].length > 0, "The domain of variable %s is empty", i);
+            widths[i] = 32 - Integer.numberOfLeadingZeros(this.domains[i].length - 1);
+            offsets[i] = bits;
+            bits += widths[i];
+        }
+        this.bitsPerSolution = bits;
+
+        checkArgument(chunkSize >= Math.max(1, (bits + 7) / 8), "chunkSize must hold at least one solution");
+        // a solution without bits, e.g., all domains are singletons, takes no space
+        this.solutionsPerChunk = bits == 0 ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, (long) chunkSize * 8 / bits);
+        // 8 spare bytes, so that each field is read and written as one long
+        this.chunkBytes = (int) (((long) solutionsPerChunk * bits + 7) / 8) + 8;
+        this.spillThreshold = spillThreshold;
+        this.spillFile = spillFile;
+    }
+
+    /**
+     * @return the initial domains of the vars of the session, the session must not be in a query
+     */
+    public static int[][] domains(@NonNull ConfigurationSession session) {
+        return Arrays.stream(session.getVars())
+                .map(v -> IntStream.iterate(v.getLB(), x -> x <= v.getUB(), v::nextValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    public static PackedSolutionStore of(@NonNull ConfigurationSession session) {
+        return new PackedSolutionStore(domains(session));
+    }
+
+    /**
+     * @return the number of chunks mapped from the spill file
+     */
+    public int getNbSpilledChunks() {
+        return chunks.size() - nbChunksInMemory;
+    }
+
+    /**
+     * Adds a solution, i.e., the values of the variables.
+     */
+    public void add(@NonNull int[] row) {
+        checkState(!closed, "The store is closed");
+        checkArgument(row.length == domains.length, "A row must have %s values", domains.length);
+
+        int chunk = (int) (size / solutionsPerChunk);
+        if (chunk == chunks.size()) {
+            chunks.add(allocate());
+        }
+        ByteBuffer buffer = chunks.get(chunk);
+        long base = (size % solutionsPerChunk) * bitsPerSolution;
+        for (int i = 0; i < row.length; i++) {
+            int index = Arrays.binarySearch(domains[i], row[i]);
+            checkArgument(index >= 0, "%s is not in the domain of variable %s", row[i], i);
+            write(buffer, base + offsets[i], widths[i], index);
+        }
+        size++;
+    }
+
+    @Override
+    public void accept(int[] row) {
+        add(row);
+    }
+
+    /**
+     * Adds all solutions of the iterator, e.g., a {@link SolutionIterator}.
+     *
+     * @return the number of solutions added
+     */
+    public long addAll(@NonNull Iterator<int[]> solutions) {
+        long added = 0;
+        while (solutions.hasNext()) {
+            add(solutions.next());
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * @return a new row with the values of the solution
+     */
+    public int[] get(long index) {
+        int[] row = new int[domains.length];
+        get(index, row);
+        return row;
+    }
+
+    /**
+     * Writes the values of the solution into the row.
+     */
+    public void get(long index, @NonNull int[] row) {
+        checkState(!closed, "The store is closed");
+        checkArgument(index >= 0 && index < size, "index %s out of range [0, %s)", index, size);
+        checkArgument(row.length == domains.length, "A row must have %s values", domains.length);
+
+        ByteBuffer buffer = chunks.get((int) (index / solutionsPerChunk));
+        long base = (index % solutionsPerChunk) * bitsPerSolution;
+        for (int i = 0; i < row.length; i++) {
+            row[i] = domains[i][read(buffer, base + offsets[i], widths[i])];
+        }
+    }
+
+    /**
+     * Scans the solutions in the order they were added.
+     *
+     * @return an iterator over a reusable row, copy the row to keep it
+     */
+    public Iterator<int[]> scan() {
+        return new Iterator<>() {
+            private final int[] row = new int[domains.length];
+            private long next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                get(next++, row);
+                return row;
+            }
+        };
+    }
+
+    /**
+     * Releases the chunks and deletes the spill file.
+     * The mapped chunks are unmapped when they are garbage collected.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunks.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private ByteBuffer allocate() {
+        if (spillFile == null || (long) (nbChunksInMemory + 1) * chunkBytes <= spillThreshold) {
+            nbChunksInMemory++;
+            return ByteBuffer.allocateDirect(chunkBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            long position = (long) getNbSpilledChunks() * chunkBytes;
+            return channel.map(FileChannel.MapMode.READ_WRITE, position, chunkBytes).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill to " + spillFile, e);
+        }
+    }
+
+    /**
+     * Writes the value into the bits [bit, bit + width) of the buffer, width is at most 31
+     */
+    private static void write(ByteBuffer buffer, long bit, int width, int value) {
+        if (width == 0) {
+            return;
+        }
+        int index = (int) (bit >>> 3);
+        int shift = (int) (bit & 7);
+        long mask = ((1L << width) - 1) << shift;
+        long word = buffer.getLong(index);
+        buffer.putLong(index, (word & ~mask) | ((long) value << shift));
+    }
+
+    private static int read(ByteBuffer buffer, long bit, int width) {
+        if (width == 0) {
+            return 0;
+        }
+        int index = (int) (bit >>> 3);
+        int shift = (int) (bit & 7);
+        return (int) ((buffer.getLong(index) >>> shift) & ((1L << width) - 1));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+import org.chocosolver.solver.Solver;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The outcome of a query under a {@link SearchBudget}, i.e., the solutions found until the search
+ * was exhausted or stopped, why it ended and the statistics of the search.
+ */
+@Value
+@Builder
+public class PartialResult {
+
+    public enum Termination {
+        /**
+         * the search space was fully explored
+         */
+        COMPLETE,
+        SOLUTION_LIMIT,
+        TIME_LIMIT,
+        NODE_LIMIT,
+        FAIL_LIMIT,
+        /**
+         * the thread was interrupted, e.g., by {@code Future.cancel(true)}, or the query was cancelled
+         */
+        CANCELLED
+    }
+
+    /**
+     * the solutions found, the values of the variables in the order of the vars
+     */
+    @Singular List<int[]> solutions;
+    @NonNull Termination termination;
+    long nodes;
+    long fails;
+    long backtracks;
+    long timeMillis;
+
+    /**
+     * @return true if all solutions were found, e.g., no solution means that the query is inconsistent
+     */
+    public boolean isComplete() {
+        return termination == Termination.COMPLETE;
+    }
+
+    /**
+     * @return true if a solution was found, false if none was found, which proves inconsistency only if complete
+     */
+    public boolean isConsistent() {
+        return !solutions.isEmpty();
+    }
+
+    public static PartialResult solve(@NonNull ConfigurationSession session,
+                                      @NonNull Collection<ConstraintWrapper> constraints,
+                                      @NonNull Collection<Requirement> requirements,
+                                      @NonNull SearchBudget budget) {
+        return solve(session, constraints, requirements, budget, () -> false);
+    }
+
+    /**
+     * Enumerates the solutions of the query until the search space is exhausted or the budget is spent.
+     * The budget and the cancellation are checked at each step of the search, so the query returns shortly
+     * after the limit. An interrupt of the thread cancels the query and the interrupt status is kept.
+     *
+     * @param cancelled polled during the search, true to stop the query
+     */
+    public static PartialResult solve(@NonNull ConfigurationSession session,
+                                      @NonNull Collection<ConstraintWrapper> constraints,
+                                      @NonNull Collection<Requirement> requirements,
+                                      @NonNull SearchBudget budget,
+                                      @NonNull BooleanSupplier cancelled) {
+        checkArgument(budget.getTimeLimitMillis() >= -1 && budget.getNodeLimit() >= -1
+                        && budget.getFailLimit() >= -1 && budget.getMaxSolutions() >= -1,
+                "The limits must be >= 0, or -1 for no limit");
+        long start = System.nanoTime();
+        // saturated, the elapsed time does not overflow
+        long timeLimitNanos = TimeUnit.MILLISECONDS.toNanos(budget.getTimeLimitMillis());
+        PartialResultBuilder builder = PartialResult.builder();
+
+        Solver solver = session.getModel().getSolver();
+        SolutionIterator iterator = session.iterator(constraints, requirements);
+        long nodes = solver.getNodeCount();
+        long fails = solver.getFailCount();
+        long backtracks = solver.getBackTrackCount();
+        // the reason of the stop, the criterion is dropped when the iterator resets the solver
+        Termination[] stop = {null};
+        Termination termination;
+        try (iterator) {
+            solver.addStopCriterion(() -> {
+                if (Thread.currentThread().isInterrupted() || cancelled.getAsBoolean()) {
+                    stop[0] = Termination.CANCELLED;
+                } else if (budget.getTimeLimitMillis() != -1 && System.nanoTime() - start > timeLimitNanos) {
+                    stop[0] = Termination.TIME_LIMIT;
+                } else if (budget.getNodeLimit() != -1 && solver.getNodeCount() - nodes >= budget.getNodeLimit()) {
+                    stop[0] = Termination.NODE_LIMIT;
+                } else if (budget.getFailLimit() != -1 && solver.getFailCount() - fails >= budget.getFailLimit()) {
+                    stop[0] = Termination.FAIL_LIMIT;
+                }
+                return stop[0] != null;
+            });
+
+            int count = 0;
+            while (true) {
+                if (count == budget.getMaxSolutions()) {
+                    termination = Termination.SOLUTION_LIMIT;
+                    break;
+                }
+                if (!iterator.hasNext()) {
+                    termination = stop[0] == null ? Termination.COMPLETE : stop[0];
+                    break;
+                }
+                builder.solution(iterator.next().clone());
+                count++;
+            }
+        }
+
+        // the closed iterator keeps its counters
+        return builder.termination(termination)
+                .nodes(iterator.getNodeCount() - nodes)
+                .fails(iterator.getFailCount() - fails)
+                .backtracks(iterator.getBackTrackCount() - backtracks)
+                .timeMillis((System.nanoTime() - start) / 1_000_000)
+                .build();
+    }
+}
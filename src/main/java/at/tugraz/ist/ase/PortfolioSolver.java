@@ -0,0 +1,245 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs a query on several sessions of a {@link SessionPool} at once.
+ * <ul>
+ *     <li>{@link #findSolution}: each worker searches with another strategy and restart policy,
+ *     the first answer, a solution or a proof of inconsistency, wins and stops the other workers</li>
+ *     <li>{@link #findSolutions}: the values of the first branching variable are split across the workers,
+ *     which enumerate the solutions of their values with the search of the session.
+ *     The merged solutions are in the order of {@link ConfigurationSession#findSolutions}.</li>
+ * </ul>
+ * The wrappers are resolved in each borrowed session, the sessions of the pool must be created the same way.
+ * Not thread-safe, use one solver per thread.
+ */
+public class PortfolioSolver {
+
+    /**
+     * A search strategy with its restart policy
+     */
+    public enum Strategy {
+        /**
+         * the search of the session, the vars in order from their lower bound, no restarts
+         */
+        INPUT_ORDER,
+        DOM_OVER_WDEG_LUBY,
+        CONFLICT_HISTORY_GEOMETRIC,
+        MIN_DOM_UB,
+        RANDOM_LUBY;
+
+        void apply(Solver solver, IntVar[] vars, long seed) {
+            switch (this) {
+                case INPUT_ORDER -> solver.setSearch(Search.inputOrderLBSearch(vars));
+                case DOM_OVER_WDEG_LUBY -> {
+                    solver.setSearch(Search.domOverWDegSearch(vars));
+                    solver.setLubyRestart(100, new FailCounter(solver.getModel(), 100), Integer.MAX_VALUE);
+                }
+                case CONFLICT_HISTORY_GEOMETRIC -> {
+                    solver.setSearch(Search.conflictHistorySearch(vars));
+                    solver.setGeometricalRestart(100, 1.5, new FailCounter(solver.getModel(), 100), Integer.MAX_VALUE);
+                }
+                case MIN_DOM_UB -> solver.setSearch(Search.minDomUBSearch(vars));
+                case RANDOM_LUBY -> {
+                    solver.setSearch(Search.randomSearch(vars, seed));
+                    solver.setLubyRestart(100, new FailCounter(solver.getModel(), 100), Integer.MAX_VALUE);
+                }
+            }
+        }
+    }
+
+    private final SessionPool pool;
+    private final ExecutorService executor;
+    private final List<Strategy> strategies;
+    private final SearchBudget budget;
+    private final long seed;
+
+    /**
+     * The strategy of the last answer of {@link #findSolution}, null if no worker answered
+     */
+    @Getter
+    private Strategy lastStrategy = null;
+
+    /**
+     * A portfolio of all strategies without budget
+     */
+    public PortfolioSolver(@NonNull SessionPool pool, @NonNull ExecutorService executor) {
+        this(pool, executor, Arrays.asList(Strategy.values()), SearchBudget.UNLIMITED, 42);
+    }
+
+    /**
+     * @param strategies the strategies of the workers of {@link #findSolution}, at most one worker per session
+     * @param budget the budget of each worker of {@link #findSolution}, its maxSolutions is ignored
+     * @param seed the seed of {@link Strategy#RANDOM_LUBY}
+     */
+    public PortfolioSolver(@NonNull SessionPool pool, @NonNull ExecutorService executor,
+                           @NonNull List<Strategy> strategies, @NonNull SearchBudget budget, long seed) {
+        checkArgument(!strategies.isEmpty(), "There must be at least one strategy");
+        this.pool = pool;
+        this.executor = executor;
+        this.strategies = List.copyOf(strategies);
+        this.budget = budget.toBuilder().maxSolutions(1).build();
+        this.seed = seed;
+    }
+
+    /**
+     * Finds a solution with the first strategy which answers.
+     *
+     * @return the answer of the winning worker, i.e., a solution, or none with a complete search if inconsistent,
+     * or, if all workers spent their budget, the result of the last one
+     */
+    public PartialResult findSolution(@NonNull Collection<ConstraintWrapper> constraints,
+                                      @NonNull Collection<Requirement> requirements) {
+        int nbWorkers = Math.min(strategies.size(), pool.getSize());
+        AtomicBoolean answered = new AtomicBoolean(false);
+        CompletionService<PartialResult> service = new ExecutorCompletionService<>(executor);
+        Map<Future<PartialResult>, Strategy> workers = new IdentityHashMap<>();
+        for (Strategy strategy : strategies.subList(0, nbWorkers)) {
+            workers.put(service.submit(() -> solve(strategy, constraints, requirements, answered)), strategy);
+        }
+
+        lastStrategy = null;
+        PartialResult answer = null;
+        RuntimeException failure = null;
+        try {
+            for (int i = 0; i < nbWorkers; i++) {
+                Future<PartialResult> done = service.take();
+                try {
+                    PartialResult result = done.get();
+                    if (lastStrategy != null) {
+                        continue;
+                    }
+                    answer = result;
+                    if (result.isConsistent() || result.isComplete()) {
+                        lastStrategy = workers.get(done);
+                        answered.set(true);
+                    }
+                } catch (ExecutionException e) {
+                    answered.set(true);
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException cause
+                                ? cause
+                                : new IllegalStateException(e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            answered.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the workers", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return answer;
+    }
+
+    /**
+     * Enumerates all solutions, split by the values of the first variable which the root propagation leaves free.
+     *
+     * @return the values of the vars for each solution, in the order of the search of the session
+     */
+    public List<int[]> findSolutions(@NonNull Collection<ConstraintWrapper> constraints,
+                                     @NonNull Collection<Requirement> requirements) {
+        Map<String, int[]> domains = withSession(s ->
+                s.remainingValues(constraints.stream().map(s::resolve).toList(), requirements));
+
+        String variable = null;
+        for (Map.Entry<String, int[]> entry : domains.entrySet()) {
+            if (entry.getValue().length == 0) {
+                return List.of();
+            }
+            if (variable == null && entry.getValue().length > 1) {
+                variable = entry.getKey();
+            }
+        }
+        if (variable == null) {
+            return enumerate(constraints, requirements);
+        }
+
+        String split = variable;
+        List<CompletableFuture<List<int[]>>> tasks = Arrays.stream(domains.get(variable))
+                .mapToObj(value -> {
+                    List<Requirement> part = new ArrayList<>(requirements);
+                    part.add(Requirement.of(split, value));
+                    return CompletableFuture.supplyAsync(() -> enumerate(constraints, part), executor);
+                })
+                .toList();
+        try {
+            return tasks.stream()
+                    .map(CompletableFuture::join)
+                    .flatMap(List::stream)
+                    .toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Searches a solution with the strategy in a borrowed session, then restores the search of the session
+     */
+    private PartialResult solve(Strategy strategy, Collection<ConstraintWrapper> constraints,
+                                Collection<Requirement> requirements, AtomicBoolean answered) {
+        return withSession(s -> {
+            Solver solver = s.getModel().getSolver();
+            AbstractStrategy<?> search = solver.getSearch();
+            strategy.apply(solver, s.getVars(), seed);
+            try {
+                return PartialResult.solve(s, constraints.stream().map(s::resolve).toList(), requirements,
+                        budget, answered::get);
+            } finally {
+                solver.clearRestarter();
+                solver.setSearch(search);
+            }
+        });
+    }
+
+    private List<int[]> enumerate(Collection<ConstraintWrapper> constraints, Collection<Requirement> requirements) {
+        return withSession(s -> s.findSolutions(constraints.stream().map(s::resolve).toList(), requirements, -1));
+    }
+
+    private <T> T withSession(Function<ConfigurationSession, T> task) {
+        try {
+            return pool.withSession(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a session", e);
+        }
+    }
+}
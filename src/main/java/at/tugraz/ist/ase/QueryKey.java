@@ -0,0 +1,50 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The canonical key of a query, i.e., the bitset of the active {@link ConstraintWrapper}s
+ * over {@link ConfigurationSession#getWrappers()} and the sorted user requirements
+ */
+@Value
+public class QueryKey {
+    BitSet constraints;
+    List<Requirement> requirements;
+    int maxSolutions;
+    /**
+     * true if all solutions are counted, see {@link QueryResult#solve}
+     */
+    boolean count;
+
+    public static QueryKey of(@NonNull ConfigurationSession session,
+                              @NonNull Collection<ConstraintWrapper> constraints,
+                              @NonNull Collection<Requirement> requirements,
+                              int maxSolutions) {
+        return of(session, constraints, requirements, maxSolutions, false);
+    }
+
+    public static QueryKey of(@NonNull ConfigurationSession session,
+                              @NonNull Collection<ConstraintWrapper> constraints,
+                              @NonNull Collection<Requirement> requirements,
+                              int maxSolutions, boolean count) {
+        List<Requirement> normalized = requirements.stream()
+                .distinct()
+                .sorted(Comparator.comparing(Requirement::getVariable).thenComparingInt(Requirement::getValue))
+                .toList();
+        return new QueryKey(session.toBitSet(constraints), normalized, maxSolutions, count);
+    }
+}
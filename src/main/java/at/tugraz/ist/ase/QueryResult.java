@@ -0,0 +1,80 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The outcome of a query, i.e., consistency, the first solutions and, if requested, the number of solutions
+ */
+@Value
+@Builder
+public class QueryResult {
+    boolean consistent;
+    /**
+     * the first solutions, the values of the variables in the order of the vars
+     */
+    @Singular List<int[]> solutions;
+    /**
+     * the number of solutions, -1 if they were not counted
+     */
+    long count;
+
+    public boolean isCounted() {
+        return count != -1;
+    }
+
+    /**
+     * Enumerates the first maxSolutions solutions of the query, at least one to check its consistency,
+     * without counting them.
+     */
+    public static QueryResult solve(@NonNull ConfigurationSession session,
+                                    @NonNull Collection<ConstraintWrapper> constraints,
+                                    @NonNull Collection<Requirement> requirements,
+                                    int maxSolutions) {
+        return solve(session, constraints, requirements, maxSolutions, false);
+    }
+
+    /**
+     * Enumerates the solutions of the query and keeps the first maxSolutions ones.
+     *
+     * @param maxSolutions the number of solutions kept, -1 for all of them, which are then counted
+     * @param count true to enumerate and count all solutions, which is unbounded on a large kb,
+     *              false to stop after the first maxSolutions solutions, the count is then -1 unless inconsistent
+     */
+    public static QueryResult solve(@NonNull ConfigurationSession session,
+                                    @NonNull Collection<ConstraintWrapper> constraints,
+                                    @NonNull Collection<Requirement> requirements,
+                                    int maxSolutions, boolean count) {
+        checkArgument(maxSolutions >= -1, "maxSolutions must be >= 0, or -1 for all solutions");
+        QueryResultBuilder builder = QueryResult.builder();
+        boolean all = count || maxSolutions == -1;
+        long limit = all ? Long.MAX_VALUE : Math.max(maxSolutions, 1);
+
+        long found = 0;
+        try (SolutionIterator iterator = session.iterator(constraints, requirements)) {
+            while (found < limit && iterator.hasNext()) {
+                int[] row = iterator.next();
+                if (maxSolutions == -1 || found < maxSolutions) {
+                    builder.solution(row.clone());
+                }
+                found++;
+            }
+        }
+        return builder.consistent(found > 0).count(all || found == 0 ? found : -1).build();
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * A user requirement, i.e., variable = value
+ */
+@Value(staticConstructor = "of")
+public class Requirement {
+    @NonNull String variable;
+    int value;
+
+    @Override
+    public String toString() {
+        return variable + " = " + value;
+    }
+}
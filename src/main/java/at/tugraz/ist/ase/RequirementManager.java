@@ -0,0 +1,198 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import com.google.common.collect.ImmutableList;
+import lombok.Getter;
+import lombok.NonNull;
+import org.chocosolver.memory.IEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Keeps the user requirements of an interactive configuration propagated in a {@link ConfigurationSession}
+ * and supports removing or changing any requirement, not only the last one.
+ * <p>
+ * Each requirement is propagated in its own world on top of the root fixpoint of the wrappers.
+ * Removing the i-th requirement pops the worlds down to i and replays only the requirements after it,
+ * instead of resetting the model. Put the requirements which rarely change first.
+ * <p>
+ * Another query of the session, e.g., {@link ConfigurationSession#findSolutions}, drops the worlds,
+ * they are replayed by the next operation of the manager.
+ * Not thread-safe, as the session.
+ */
+public class RequirementManager {
+
+    private final ConfigurationSession session;
+    private final Collection<ConstraintWrapper> constraints;
+
+    private final List<Requirement> requirements = new ArrayList<>();
+    /**
+     * the number of requirements propagated in worlds, world i + 1 above the propagation world
+     * holds the fixpoint of the first i + 1 requirements
+     */
+    private int applied = 0;
+    /**
+     * true if the propagation of the last applied requirement failed,
+     * the requirements after it are not applied until it is removed
+     */
+    private boolean failed = false;
+    private int version = -1;
+
+    /**
+     * The number of requirements propagated by the last operation, the new requirement included
+     */
+    @Getter
+    private int lastReplayed = 0;
+    @Getter
+    private long totalReplayed = 0;
+
+    /**
+     * @param constraints the active wrappers, e.g., kb + restrictions
+     */
+    public RequirementManager(@NonNull ConfigurationSession session, @NonNull Collection<ConstraintWrapper> constraints) {
+        this.session = session;
+        this.constraints = ImmutableList.copyOf(constraints);
+    }
+
+    public List<Requirement> getRequirements() {
+        return Collections.unmodifiableList(requirements);
+    }
+
+    /**
+     * Adds a requirement after the others. If there is already a requirement on the variable,
+     * its value is changed in place and the requirements after it are replayed.
+     *
+     * @return the number of requirements propagated
+     */
+    public int add(@NonNull Requirement requirement) {
+        session.getVar(requirement.getVariable());
+        int position = indexOf(requirement.getVariable());
+        if (position == -1) {
+            requirements.add(requirement);
+            return replayFrom(requirements.size() - 1);
+        }
+        requirements.set(position, requirement);
+        return replayFrom(position);
+    }
+
+    /**
+     * Removes the requirement on the variable, wherever it is.
+     *
+     * @return the number of requirements propagated
+     */
+    public int remove(@NonNull String variable) {
+        int position = indexOf(variable);
+        checkArgument(position != -1, "No requirement on %s", variable);
+
+        requirements.remove(position);
+        return replayFrom(position);
+    }
+
+    public int remove(@NonNull Requirement requirement) {
+        checkArgument(requirements.contains(requirement), "Unknown requirement %s", requirement);
+        return remove(requirement.getVariable());
+    }
+
+    public void clear() {
+        requirements.clear();
+        replayFrom(0);
+    }
+
+    /**
+     * @return false if the propagation of the requirements fails
+     */
+    public boolean isConsistent() {
+        sync();
+        return !failed;
+    }
+
+    /**
+     * @return for each variable, the values which remain possible by propagation of the requirements
+     * @see ConfigurationSession#remainingValues(Collection, Collection, boolean)
+     */
+    public Map<String, int[]> remainingValues(boolean sac) {
+        sync();
+        if (failed || !sac) {
+            return session.domains(!failed);
+        }
+
+        IEnvironment environment = session.getModel().getEnvironment();
+        environment.worldPush();
+        try {
+            return session.domains(session.singletonArcConsistency());
+        } finally {
+            session.getModel().getSolver().getEngine().flush();
+            environment.worldPop();
+        }
+    }
+
+    private int indexOf(String variable) {
+        for (int i = 0; i < requirements.size(); i++) {
+            if (requirements.get(i).getVariable().equals(variable)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Rebuilds the worlds if the session has dropped them
+     */
+    private void sync() {
+        if (isValid()) {
+            lastReplayed = 0;
+        } else {
+            replayFrom(0);
+        }
+    }
+
+    private boolean isValid() {
+        return version == session.getPropagationVersion()
+                && session.getModel().getEnvironment().getWorldIndex() == session.getPropagationWorldIndex() + applied;
+    }
+
+    /**
+     * Pops the worlds of the requirements from the position on and propagates them again.
+     */
+    private int replayFrom(int position) {
+        IEnvironment environment = session.getModel().getEnvironment();
+        if (!isValid()) {
+            failed = !session.openPropagation(constraints);
+            version = session.getPropagationVersion();
+            applied = 0;
+        } else if (failed && position >= applied) {
+            // the failed requirement is kept, the requirements after it cannot be applied
+            lastReplayed = 0;
+            return 0;
+        } else {
+            applied = Math.min(applied, position);
+            failed = false;
+            environment.worldPopUntil(session.getPropagationWorldIndex() + applied);
+        }
+
+        int replayed = 0;
+        while (!failed && applied < requirements.size()) {
+            environment.worldPush();
+            applied++;
+            replayed++;
+            failed = !session.propagate(List.of(requirements.get(applied - 1)));
+        }
+
+        lastReplayed = replayed;
+        totalReplayed += replayed;
+        return replayed;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Compares {@link RequirementManager} with {@link ConfigurationSession#remainingValues} on random
+ * add/change/remove operations, over the car model and a generated KB, failed states included.
+ * The manager and the reference run on two sessions, so that the reference does not drop the worlds of the manager.
+ * <p>
+ * Usage: RequirementManagerCheck [nbOperations] [seed]
+ */
+public class RequirementManagerCheck {
+
+    public static void main(String[] args) {
+        int nbOperations = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+        check("car", ConfigurationSession.carModel(), ConfigurationSession.carModel(), nbOperations, seed);
+
+        KnowledgeBaseDefinition definition = KnowledgeBaseGenerator.builder()
+                .seed(seed).nbVariables(40).nbImplications(120).nbRestrictions(20).density(0.2)
+                .build().generate();
+        check(definition.getName(), definition.createSession(), definition.createSession(), nbOperations, seed);
+    }
+
+    /**
+     * @param session the session of the manager
+     * @param reference another session of the same KB, for {@link ConfigurationSession#remainingValues}
+     */
+    static void check(@NonNull String name, @NonNull ConfigurationSession session,
+                      @NonNull ConfigurationSession reference, int nbOperations, long seed) {
+        // the domains before any propagation
+        IntVar[] vars = reference.getVars();
+        int[][] domains = new int[vars.length][];
+        for (int i = 0; i < vars.length; i++) {
+            IntVar var = vars[i];
+            domains[i] = new int[var.getDomainSize()];
+            for (int v = var.getLB(), j = 0; v <= var.getUB(); v = var.nextValue(v)) {
+                domains[i][j++] = v;
+            }
+        }
+
+        RequirementManager manager = new RequirementManager(session, session.getWrappers());
+        Random random = new Random(seed);
+        int nbFailed = 0;
+        for (int i = 0; i < nbOperations; i++) {
+            List<Requirement> requirements = manager.getRequirements();
+            int operation = random.nextInt(10);
+            if (operation < 3 && !requirements.isEmpty()) {
+                manager.remove(requirements.get(random.nextInt(requirements.size())).getVariable());
+            } else if (operation < 5 && !requirements.isEmpty()) {
+                // changes the value of a requirement, wherever it is
+                String variable = requirements.get(random.nextInt(requirements.size())).getVariable();
+                manager.add(Requirement.of(variable, randomValue(manager, variable, domains, reference, random)));
+            } else if (operation < 6) {
+                // another query of the session drops the worlds of the manager
+                session.findSolutions(session.getWrappers(), List.of(), 1);
+            } else if (requirements.size() < Math.min(8, vars.length)) {
+                String variable = vars[random.nextInt(vars.length)].getName();
+                manager.add(Requirement.of(variable, randomValue(manager, variable, domains, reference, random)));
+            }
+
+            boolean sac = random.nextBoolean();
+            Map<String, int[]> expected = reference.remainingValues(reference.getWrappers(),
+                    manager.getRequirements(), sac);
+            Map<String, int[]> actual = manager.remainingValues(sac);
+            checkState(expected.keySet().equals(actual.keySet()), "%s: operation %s, other variables", name, i);
+            for (String variable : expected.keySet()) {
+                checkState(Arrays.equals(expected.get(variable), actual.get(variable)),
+                        "%s: operation %s, requirements %s, sac %s, %s: expected %s, got %s",
+                        name, i, manager.getRequirements(), sac, variable,
+                        Arrays.toString(expected.get(variable)), Arrays.toString(actual.get(variable)));
+            }
+
+            boolean consistent = manager.isConsistent();
+            checkState(consistent == expected.values().stream().allMatch(values -> values.length > 0),
+                    "%s: operation %s, isConsistent %s", name, i, consistent);
+            if (!consistent) {
+                nbFailed++;
+            }
+        }
+
+        System.out.println(name + ": " + nbOperations + " operations ok, " + nbFailed + " failed states, "
+                + manager.getTotalReplayed() + " requirements replayed");
+    }
+
+    /**
+     * @return mostly a value which remains possible, else any value of the domain
+     */
+    private static int randomValue(RequirementManager manager, String variable, int[][] domains,
+                                   ConfigurationSession reference, Random random) {
+        int[] values = manager.remainingValues(false).get(variable);
+        if (values.length == 0 || random.nextInt(5) == 0) {
+            values = domains[reference.getVarIndex(variable)];
+        }
+        return values[random.nextInt(values.length)];
+    }
+}
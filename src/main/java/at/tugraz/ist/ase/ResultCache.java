@@ -0,0 +1,108 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A bounded cache of query results with size- and age-based eviction.
+ * The key is the canonical bitset of the active {@link ConstraintWrapper}s plus
+ * the normalized user requirements, hence it can be shared by sessions of a {@link SessionPool}.
+ * <p>
+ * The cache does not observe the wrappers: after the constraints of a wrapper are changed,
+ * e.g., by {@link ConstraintWrapper#setConstraints}, the caller must {@link #invalidate} its results.
+ * Each query gets its own copy of the solutions, the cached rows cannot be modified by a caller.
+ */
+public class ResultCache {
+
+    private final Cache<QueryKey, QueryResult> cache;
+
+    /**
+     * @param maximumSize the maximum number of cached results
+     * @param expireAfterWrite the age after which a result is evicted
+     */
+    public ResultCache(long maximumSize, @NonNull Duration expireAfterWrite) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Gets the cached result of the query, or solves the query with the session without counting the solutions.
+     */
+    public QueryResult query(@NonNull ConfigurationSession session,
+                             @NonNull Collection<ConstraintWrapper> constraints,
+                             @NonNull Collection<Requirement> requirements,
+                             int maxSolutions) {
+        return query(session, constraints, requirements, maxSolutions, false);
+    }
+
+    /**
+     * Gets the cached result of the query, or solves the query with the session.
+     *
+     * @param maxSolutions the number of solutions kept, -1 for all of them
+     * @param count true to count all solutions, see {@link QueryResult#solve}
+     */
+    public QueryResult query(@NonNull ConfigurationSession session,
+                             @NonNull Collection<ConstraintWrapper> constraints,
+                             @NonNull Collection<Requirement> requirements,
+                             int maxSolutions, boolean count) {
+        QueryKey key = QueryKey.of(session, constraints, requirements, maxSolutions, count);
+        QueryResult result;
+        try {
+            result = cache.get(key, () -> QueryResult.solve(session, constraints, requirements, maxSolutions, count));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new IllegalStateException("Cannot solve the query", e.getCause());
+        }
+        return QueryResult.builder()
+                .consistent(result.isConsistent())
+                .solutions(result.getSolutions().stream().map(int[]::clone).toList())
+                .count(result.getCount())
+                .build();
+    }
+
+    /**
+     * Removes the results of all queries in which the wrapper is active,
+     * e.g., after the definition of the wrapper changed.
+     *
+     * @param wrapperIndex the index of the wrapper in {@link ConfigurationSession#getWrappers()}
+     */
+    public void invalidate(int wrapperIndex) {
+        cache.asMap().keySet().removeIf(key -> key.getConstraints().get(wrapperIndex));
+    }
+
+    public void invalidate(@NonNull ConfigurationSession session, @NonNull ConstraintWrapper wrapper) {
+        invalidate(session.indexOf(wrapper));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * @return hit/miss metrics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
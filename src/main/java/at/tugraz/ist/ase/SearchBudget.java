@@ -0,0 +1,34 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Limits of a query, -1 for no limit, see {@link PartialResult#solve}.
+ * The nodes and fails are counted by the solver from the start of the query.
+ */
+@Value
+@Builder(toBuilder = true)
+public class SearchBudget {
+    public static final SearchBudget UNLIMITED = SearchBudget.builder().build();
+
+    /**
+     * the wall-clock time of the query
+     */
+    @Builder.Default
+    long timeLimitMillis = -1;
+    @Builder.Default
+    long nodeLimit = -1;
+    @Builder.Default
+    long failLimit = -1;
+    @Builder.Default
+    int maxSolutions = -1;
+}
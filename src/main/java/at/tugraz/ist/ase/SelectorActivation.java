@@ -0,0 +1,119 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.ReificationConstraint;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.BoolVar;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Activation mode using selector literals.
+ * Each {@link ConstraintWrapper} is reified once against its own {@link BoolVar} selector,
+ * i.e., selector => constraints of the wrapper. A query turns a subset of wrappers on/off
+ * by fixing the selectors inside a world, so the model structure never changes between queries.
+ */
+public class SelectorActivation {
+
+    private final Model model;
+    private final Map<ConstraintWrapper, BoolVar> selectors = new LinkedHashMap<>();
+    private int worldIndex = -1;
+
+    /**
+     * @param model the model the wrappers belong to
+     * @param wrappers the wrappers to reify, their constraints must be unposted
+     */
+    public SelectorActivation(@NonNull Model model, @NonNull List<ConstraintWrapper> wrappers) {
+        this.model = model;
+
+        wrappers.forEach(this::reify);
+    }
+
+    private void reify(ConstraintWrapper wrapper) {
+        checkArgument(!selectors.containsKey(wrapper), "ConstraintWrapper %s is already reified", wrapper.getName());
+
+        BoolVar selector = model.boolVar("selector_" + selectors.size());
+        for (Constraint c : wrapper.getConstraints()) {
+            checkArgument(c.getStatus() == Constraint.Status.FREE,
+                    "Constraints of %s must be unposted before reification", wrapper.getName());
+
+            if (c instanceof ReificationConstraint) {
+                // reification constraints only define the auxiliary BoolVars
+                // of the wrapper, so they can be kept posted
+                c.post();
+            } else {
+                // selector => c
+                model.ifThen(selector, c);
+            }
+        }
+        selectors.put(wrapper, selector);
+    }
+
+    public BoolVar getSelector(@NonNull ConstraintWrapper wrapper) {
+        BoolVar selector = selectors.get(wrapper);
+        checkArgument(selector != null, "ConstraintWrapper %s is not reified", wrapper.getName());
+        return selector;
+    }
+
+    public boolean isActive() {
+        return worldIndex != -1;
+    }
+
+    /**
+     * Opens a new world and enables exactly the given wrappers,
+     * all other reified wrappers are disabled.
+     */
+    public void activate(@NonNull List<ConstraintWrapper> wrappers) {
+        checkState(!isActive(), "Call deactivate() before activating another subset");
+
+        Set<ConstraintWrapper> enabled = Collections.newSetFromMap(new IdentityHashMap<>());
+        enabled.addAll(wrappers);
+        checkArgument(selectors.keySet().containsAll(enabled), "All ConstraintWrappers must be reified");
+
+        // save the current state
+        IEnvironment environment = model.getEnvironment();
+        environment.worldPush();
+        worldIndex = environment.getWorldIndex();
+
+        try {
+            for (Map.Entry<ConstraintWrapper, BoolVar> entry : selectors.entrySet()) {
+                entry.getValue().instantiateTo(enabled.contains(entry.getKey()) ? 1 : 0, Cause.Null);
+            }
+        } catch (ContradictionException e) {
+            // selectors are only fixed here, hence they can't be in conflict
+            deactivate();
+            throw new IllegalStateException("Cannot fix the selectors", e);
+        }
+    }
+
+    /**
+     * Resets the solver and gets back the state before {@link #activate(List)}.
+     */
+    public void deactivate() {
+        checkState(isActive(), "No activated subset");
+
+        model.getSolver().reset();
+        model.getEnvironment().worldPopUntil(worldIndex - 1);
+        worldIndex = -1;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A bounded pool of pre-built {@link ConfigurationSession}s.
+ * Request threads (platform or virtual ones) borrow a session, use it exclusively,
+ * and return it, the session is reset on return.
+ */
+public class SessionPool {
+
+    @Getter
+    private final int size;
+    private final Supplier<ConfigurationSession> factory;
+    private final BlockingQueue<ConfigurationSession> idle;
+    private final Set<ConfigurationSession> sessions =
+            Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    /**
+     * the sessions which are borrowed and not released yet
+     */
+    private final Set<ConfigurationSession> borrowed =
+            Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    /**
+     * @param size the number of sessions
+     * @param factory creates a new session, e.g., {@code ConfigurationSession::carModel}
+     */
+    public SessionPool(int size, @NonNull Supplier<ConfigurationSession> factory) {
+        checkArgument(size > 0, "size must be > 0");
+
+        this.size = size;
+        this.factory = factory;
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            ConfigurationSession session = factory.get();
+            sessions.add(session);
+            idle.add(session);
+        }
+    }
+
+    /**
+     * Waits until a session is available.
+     */
+    public ConfigurationSession borrow() throws InterruptedException {
+        ConfigurationSession session = idle.take();
+        borrowed.add(session);
+        return session;
+    }
+
+    /**
+     * @return a session, or null if none is available within the timeout
+     */
+    public ConfigurationSession borrow(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        ConfigurationSession session = idle.poll(timeout, unit);
+        if (session != null) {
+            borrowed.add(session);
+        }
+        return session;
+    }
+
+    /**
+     * Resets the session and gives it back to the pool, the session must be borrowed.
+     * If the reset fails, the session is dropped and replaced by a new one from the factory,
+     * and the failure is rethrown.
+     */
+    public void release(@NonNull ConfigurationSession session) {
+        checkArgument(sessions.contains(session), "The session does not belong to this pool");
+        checkArgument(borrowed.remove(session), "The session is not borrowed, e.g., it is already released");
+
+        try {
+            session.reset();
+        } catch (RuntimeException e) {
+            sessions.remove(session);
+            replace(e);
+            throw e;
+        }
+        idle.add(session);
+    }
+
+    /**
+     * Adds a new session in place of a dropped one
+     */
+    private void replace(RuntimeException failure) {
+        ConfigurationSession replacement;
+        try {
+            replacement = factory.get();
+        } catch (RuntimeException e) {
+            // the pool has one session less
+            failure.addSuppressed(e);
+            return;
+        }
+        sessions.add(replacement);
+        idle.add(replacement);
+    }
+
+    /**
+     * Borrows a session, runs the task on it, and releases the session.
+     * If both the task and the release fail, the failure of the release is suppressed by the one of the task.
+     */
+    public <T> T withSession(@NonNull Function<ConfigurationSession, T> task) throws InterruptedException {
+        ConfigurationSession session = borrow();
+        T result;
+        try {
+            result = task.apply(session);
+        } catch (RuntimeException | Error e) {
+            try {
+                release(session);
+            } catch (RuntimeException releaseFailure) {
+                e.addSuppressed(releaseFailure);
+            }
+            throw e;
+        }
+        release(session);
+        return result;
+    }
+
+    public int getAvailable() {
+        return idle.size();
+    }
+}
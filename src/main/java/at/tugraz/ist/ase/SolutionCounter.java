@@ -0,0 +1,407 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Counts the solutions of the active wrappers and requirements without enumerating them.
+ * <p>
+ * The exact count is a search with dynamic decomposition and component caching:
+ * at each node, the free variables are split into connected components over the propagators which are not passive,
+ * the count of a node is the product of the counts of its components, and the count of a component,
+ * keyed by the domains of its variables, is cached. Loosely coupled product lines thus need
+ * a search per component instead of a search over the whole product.
+ * <p>
+ * If the time limit is exceeded, the count falls back to Knuth's estimator: random probes
+ * from the root of each component, the product of the domain sizes along a probe is an unbiased estimate.
+ * Not thread-safe, as the session.
+ */
+public class SolutionCounter {
+    private final ConfigurationSession session;
+    private final long timeLimitMillis;
+    /**
+     * the maximal number of probes per component of the estimate
+     */
+    private final int nbProbes;
+    private final int maxCacheSize;
+    private final long seed;
+
+    /**
+     * the defaults of the builder
+     */
+    public static class SolutionCounterBuilder {
+        private long timeLimitMillis = 10_000;
+        private int nbProbes = 1000;
+        private int maxCacheSize = 1_000_000;
+        private long seed = 42;
+    }
+
+    @Builder
+    private SolutionCounter(@NonNull ConfigurationSession session, long timeLimitMillis, int nbProbes,
+                            int maxCacheSize, long seed) {
+        checkArgument(timeLimitMillis > 0 && nbProbes > 0, "timeLimitMillis and nbProbes must be > 0");
+        this.session = session;
+        this.timeLimitMillis = timeLimitMillis;
+        this.nbProbes = nbProbes;
+        this.maxCacheSize = maxCacheSize;
+        this.seed = seed;
+    }
+
+    @Value
+    public static class CountResult {
+        BigInteger count;
+        /**
+         * false if the count is an estimate
+         */
+        boolean exact;
+        /**
+         * the search nodes of the exact count, until the time limit
+         */
+        long nodes;
+        long cacheHits;
+        long timeMillis;
+    }
+
+    /**
+     * Domains of the variables of a component and their context, the key of the cache
+     */
+    @Value
+    private static class Key {
+        int[] domains;
+    }
+
+    private static final class TimeLimitExceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        TimeLimitExceeded() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * the variables of the session first, then the auxiliary variables
+     */
+    private List<IntVar> nodes;
+    private int nbVars;
+    /**
+     * the node indices of the variables of each propagator, and the propagators of each node
+     */
+    private List<Propagator<?>> propagators;
+    private List<int[]> propagatorNodes;
+    private List<List<Integer>> nodePropagators;
+
+    private Map<Key, BigInteger> cache;
+    private long nbNodes;
+    private long nbCacheHits;
+    private long deadline;
+
+    /**
+     * Counts the solutions of the wrappers and requirements.
+     */
+    public CountResult count(@NonNull Collection<ConstraintWrapper> constraints,
+                             @NonNull Collection<Requirement> requirements) {
+        requirements.forEach(r -> session.getVar(r.getVariable()));
+        long start = System.currentTimeMillis();
+        long end = System.nanoTime() + timeLimitMillis * 1_000_000;
+        // the last quarter of the time limit is left for the estimate
+        deadline = end - timeLimitMillis * 250_000;
+        cache = new HashMap<>();
+        nbNodes = 0;
+        nbCacheHits = 0;
+
+        IEnvironment environment = session.getModel().getEnvironment();
+        if (!session.openPropagation(constraints)) {
+            return new CountResult(BigInteger.ZERO, true, 0, 0, System.currentTimeMillis() - start);
+        }
+        buildGraph(constraints);
+
+        environment.worldPush();
+        try {
+            if (!session.propagate(requirements)) {
+                return new CountResult(BigInteger.ZERO, true, 0, 0, System.currentTimeMillis() - start);
+            }
+
+            List<int[]> components = components(freeNodes());
+            try {
+                BigInteger count = BigInteger.ONE;
+                for (int[] component : components) {
+                    count = count.multiply(countComponent(component));
+                }
+                return new CountResult(count, true, nbNodes, nbCacheHits, System.currentTimeMillis() - start);
+            } catch (TimeLimitExceeded e) {
+                session.getModel().getSolver().getEngine().flush();
+                environment.worldPopUntil(session.getPropagationWorldIndex() + 1);
+
+                BigDecimal estimate = BigDecimal.ONE;
+                Random random = new Random(seed);
+                for (int[] component : components) {
+                    estimate = estimate.multiply(estimate(component, random, end));
+                }
+                return new CountResult(estimate.setScale(0, RoundingMode.HALF_UP).toBigInteger(), false,
+                        nbNodes, nbCacheHits, System.currentTimeMillis() - start);
+            }
+        } finally {
+            environment.worldPopUntil(session.getPropagationWorldIndex());
+            cache = null;
+            nodes = null;
+            propagators = null;
+            propagatorNodes = null;
+            nodePropagators = null;
+        }
+    }
+
+    private void buildGraph(Collection<ConstraintWrapper> constraints) {
+        Map<Variable, Integer> indices = new IdentityHashMap<>();
+        nodes = new ArrayList<>(Arrays.asList(session.getVars()));
+        nbVars = nodes.size();
+        for (int i = 0; i < nbVars; i++) {
+            indices.put(nodes.get(i), i);
+        }
+        nodePropagators = new ArrayList<>();
+        nodes.forEach(n -> nodePropagators.add(new ArrayList<>()));
+        propagators = new ArrayList<>();
+        propagatorNodes = new ArrayList<>();
+
+        for (ConstraintWrapper wrapper : constraints) {
+            for (Constraint constraint : wrapper.getConstraints()) {
+                for (Propagator<?> propagator : constraint.getPropagators()) {
+                    int[] vars = new int[propagator.getNbVars()];
+                    for (int i = 0; i < vars.length; i++) {
+                        Variable var = propagator.getVar(i);
+                        checkArgument(var instanceof IntVar, "Only integer variables can be counted, not %s", var);
+                        vars[i] = indices.computeIfAbsent(var, v -> {
+                            nodes.add((IntVar) v);
+                            nodePropagators.add(new ArrayList<>());
+                            return nodes.size() - 1;
+                        });
+                        nodePropagators.get(vars[i]).add(propagators.size());
+                    }
+                    propagators.add(propagator);
+                    propagatorNodes.add(vars);
+                }
+            }
+        }
+    }
+
+    private int[] freeNodes() {
+        return freeNodes(IntStream.range(0, nodes.size()).toArray());
+    }
+
+    private int[] freeNodes(int[] scope) {
+        return Arrays.stream(scope).filter(n -> !nodes.get(n).isInstantiated()).toArray();
+    }
+
+    /**
+     * Splits the free nodes into connected components over the propagators which are not passive.
+     * The components without variables of the session are dropped, they count as one.
+     */
+    private List<int[]> components(int[] free) {
+        Map<Integer, Boolean> open = new HashMap<>();
+        for (int n : free) {
+            open.put(n, true);
+        }
+
+        List<int[]> components = new ArrayList<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int n : free) {
+            if (!open.get(n)) {
+                continue;
+            }
+            List<Integer> component = new ArrayList<>();
+            boolean hasVar = false;
+            open.put(n, false);
+            queue.add(n);
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                component.add(node);
+                hasVar |= node < nbVars;
+                for (int p : nodePropagators.get(node)) {
+                    if (propagators.get(p).isPassive()) {
+                        continue;
+                    }
+                    for (int other : propagatorNodes.get(p)) {
+                        if (open.getOrDefault(other, false)) {
+                            open.put(other, false);
+                            queue.add(other);
+                        }
+                    }
+                }
+            }
+            if (hasVar) {
+                components.add(component.stream().mapToInt(Integer::intValue).sorted().toArray());
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Counts the solutions of a connected component of free nodes in the current world
+     */
+    private BigInteger countComponent(int[] component) {
+        Key key = key(component);
+        BigInteger cached = cache.get(key);
+        if (cached != null) {
+            nbCacheHits++;
+            return cached;
+        }
+
+        // branch on the variable of the session with the smallest domain
+        IntVar var = branchingVariable(component);
+        IEnvironment environment = session.getModel().getEnvironment();
+        BigInteger count = BigInteger.ZERO;
+        for (int value = var.getLB(); value <= var.getUB(); value = var.nextValue(value)) {
+            if (++nbNodes % 64 == 0 && System.nanoTime() > deadline) {
+                throw new TimeLimitExceeded();
+            }
+
+            environment.worldPush();
+            try {
+                var.instantiateTo(value, Cause.Null);
+                if (session.propagate(List.of())) {
+                    BigInteger product = BigInteger.ONE;
+                    for (int[] sub : components(freeNodes(component))) {
+                        product = product.multiply(countComponent(sub));
+                        if (product.signum() == 0) {
+                            break;
+                        }
+                    }
+                    count = count.add(product);
+                }
+            } catch (ContradictionException e) {
+                session.getModel().getSolver().getEngine().flush();
+            } finally {
+                environment.worldPop();
+            }
+        }
+
+        if (cache.size() < maxCacheSize) {
+            cache.put(key, count);
+        }
+        return count;
+    }
+
+    private IntVar branchingVariable(int[] component) {
+        IntVar best = null;
+        for (int n : component) {
+            if (n < nbVars && (best == null || nodes.get(n).getDomainSize() < best.getDomainSize())) {
+                best = nodes.get(n);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The node indices and the domains of the component, and the values of the instantiated nodes
+     * which share a propagator with it, since they define the constraints left on the component
+     */
+    private Key key(int[] component) {
+        Map<Integer, Integer> context = new TreeMap<>();
+        for (int n : component) {
+            for (int p : nodePropagators.get(n)) {
+                if (!propagators.get(p).isPassive()) {
+                    for (int other : propagatorNodes.get(p)) {
+                        if (nodes.get(other).isInstantiated()) {
+                            context.put(other, nodes.get(other).getValue());
+                        }
+                    }
+                }
+            }
+        }
+
+        int size = component.length * 2 + context.size() * 2 + 1;
+        for (int n : component) {
+            size += nodes.get(n).getDomainSize();
+        }
+        int[] domains = new int[size];
+        int i = 0;
+        for (int n : component) {
+            IntVar var = nodes.get(n);
+            domains[i++] = n;
+            domains[i++] = var.getDomainSize();
+            for (int value = var.getLB(); value <= var.getUB(); value = var.nextValue(value)) {
+                domains[i++] = value;
+            }
+        }
+        domains[i++] = -1;
+        for (Map.Entry<Integer, Integer> entry : context.entrySet()) {
+            domains[i++] = entry.getKey();
+            domains[i++] = entry.getValue();
+        }
+        return new Key(domains);
+    }
+
+    /**
+     * Knuth's estimate of the number of solutions of a component, the mean of the random probes,
+     * at least one probe and no more probes after the deadline
+     */
+    private BigDecimal estimate(int[] component, Random random, long deadline) {
+        IEnvironment environment = session.getModel().getEnvironment();
+        BigInteger sum = BigInteger.ZERO;
+        int probe = 0;
+        while (probe < nbProbes && (probe == 0 || System.nanoTime() < deadline)) {
+            probe++;
+            int world = environment.getWorldIndex();
+            environment.worldPush();
+            try {
+                BigInteger estimate = BigInteger.ONE;
+                int[] free = freeNodes(component);
+                IntVar var;
+                while ((var = branchingVariable(free)) != null) {
+                    int[] values = new int[var.getDomainSize()];
+                    int i = 0;
+                    for (int value = var.getLB(); value <= var.getUB(); value = var.nextValue(value)) {
+                        values[i++] = value;
+                    }
+                    estimate = estimate.multiply(BigInteger.valueOf(values.length));
+
+                    var.instantiateTo(values[random.nextInt(values.length)], Cause.Null);
+                    if (!session.propagate(List.of())) {
+                        estimate = BigInteger.ZERO;
+                        break;
+                    }
+                    free = freeNodes(free);
+                }
+                sum = sum.add(estimate);
+            } catch (ContradictionException e) {
+                session.getModel().getSolver().getEngine().flush();
+            } finally {
+                environment.worldPopUntil(world);
+            }
+        }
+        return new BigDecimal(sum).divide(BigDecimal.valueOf(probe), 10, RoundingMode.HALF_UP);
+    }
+}
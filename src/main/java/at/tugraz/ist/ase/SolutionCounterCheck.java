@@ -0,0 +1,86 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.NonNull;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Compares the exact count of {@link SolutionCounter} with a brute-force enumeration
+ * ({@link ConfigurationSession#findSolutions} with maxSolutions = -1) on random subsets of the wrappers
+ * and random requirements, over the car model and small generated KBs.
+ * <p>
+ * Usage: SolutionCounterCheck [nbKBs] [seed]
+ */
+public class SolutionCounterCheck {
+
+    private static final int NB_QUERIES = 20;
+
+    public static void main(String[] args) {
+        int nbKBs = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        Random random = new Random(seed);
+
+        check("car", ConfigurationSession.carModel(), random);
+
+        for (int i = 0; i < nbKBs; i++) {
+            // small enough to be enumerated
+            KnowledgeBaseDefinition definition = KnowledgeBaseGenerator.builder()
+                    .seed(random.nextLong())
+                    .nbVariables(3 + random.nextInt(6))
+                    .domainSize(2 + random.nextInt(3))
+                    .nbImplications(random.nextInt(15))
+                    .nbRestrictions(random.nextInt(4))
+                    .density(0.5)
+                    .satisfiable(random.nextInt(5) > 0)
+                    .build().generate();
+            check(definition.getName(), definition.createSession(), random);
+        }
+    }
+
+    static void check(@NonNull String name, @NonNull ConfigurationSession session, @NonNull Random random) {
+        SolutionCounter counter = SolutionCounter.builder().session(session).timeLimitMillis(60_000).build();
+        IntVar[] vars = session.getVars();
+
+        long total = 0;
+        for (int i = 0; i < NB_QUERIES; i++) {
+            List<ConstraintWrapper> constraints = new ArrayList<>();
+            for (ConstraintWrapper wrapper : session.getWrappers()) {
+                if (i == 0 || random.nextInt(4) > 0) {
+                    constraints.add(wrapper);
+                }
+            }
+            List<Requirement> requirements = new ArrayList<>();
+            for (int j = random.nextInt(3); j > 0; j--) {
+                IntVar var = vars[random.nextInt(vars.length)];
+                int value = var.getLB() + random.nextInt(var.getUB() - var.getLB() + 1);
+                if (var.contains(value)) {
+                    requirements.add(Requirement.of(var.getName(), value));
+                }
+            }
+
+            SolutionCounter.CountResult result = counter.count(constraints, requirements);
+            long expected = session.findSolutions(constraints, requirements, -1).size();
+            checkState(result.isExact(), "%s: query %s, the count is not exact", name, i);
+            checkState(result.getCount().equals(BigInteger.valueOf(expected)),
+                    "%s: query %s, %s wrappers, requirements %s: expected %s, got %s",
+                    name, i, constraints.size(), requirements, expected, result.getCount());
+            total += expected;
+        }
+
+        System.out.println(name + ": " + NB_QUERIES + " counts ok, " + total + " solutions");
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily pulls the solutions of a query, the search runs only when the next solution is requested.
+ * <p>
+ * Each solution is written into the same reusable row, i.e., the values of the variables
+ * in the order of the vars, copy the row to keep it.
+ * The iterator gets back the state before the query when it is exhausted or closed.
+ */
+public class SolutionIterator implements Iterator<int[]>, AutoCloseable {
+
+    private final Model model;
+    private final IntVar[] vars;
+    private final int worldIndex;
+    private final int[] row;
+    private final long start = System.nanoTime();
+
+    private boolean consistent;
+    private boolean fetched = false;
+    private boolean hasNext = false;
+    @Getter
+    private boolean closed = false;
+    @Getter
+    private int nbSolutions = 0;
+    /**
+     * the statistics of the search, kept on close since the solver is reset
+     */
+    private long nodes = 0;
+    private long fails = 0;
+    private long backtracks = 0;
+
+    /**
+     * Opens a world in which the caller has already applied the query,
+     * the world is popped on close.
+     *
+     * @param consistent false if the query is known to have no solution
+     */
+    SolutionIterator(@NonNull Model model, @NonNull IntVar[] vars, int worldIndex, boolean consistent) {
+        this.model = model;
+        this.vars = vars;
+        this.worldIndex = worldIndex;
+        this.consistent = consistent;
+        this.row = new int[vars.length];
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!fetched) {
+            hasNext = !closed && consistent && model.getSolver().solve();
+            fetched = true;
+
+            if (!hasNext) {
+                close();
+            }
+        }
+        return hasNext;
+    }
+
+    /**
+     * @return the reusable row with the values of the next solution
+     */
+    @Override
+    public int[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        fetched = false;
+        nbSolutions++;
+
+        for (int i = 0; i < vars.length; i++) {
+            row[i] = vars[i].getValue();
+        }
+        return row;
+    }
+
+    public long getNodeCount() {
+        return closed ? nodes : model.getSolver().getNodeCount();
+    }
+
+    public long getFailCount() {
+        return closed ? fails : model.getSolver().getFailCount();
+    }
+
+    public long getBackTrackCount() {
+        return closed ? backtracks : model.getSolver().getBackTrackCount();
+    }
+
+    /**
+     * Stops the search and gets back the state before the query.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            consistent = false;
+
+            Solver solver = model.getSolver();
+            nodes = solver.getNodeCount();
+            fails = solver.getFailCount();
+            backtracks = solver.getBackTrackCount();
+            solver.reset();
+            model.getEnvironment().worldPopUntil(worldIndex - 1);
+            Instrumentation.get().recordLatency(Instrumentation.Query.SOLVE, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Writes solutions with the labels of their values as CSV or JSON lines into a {@link WritableByteChannel}.
+ * <p>
+ * The bytes of each (variable, value) cell, i.e., the escaped label with its separator
+ * or the JSON member with its name, are computed once from the {@link VariableDefinition}s
+ * and looked up by the index of the value. Writing a solution only copies these bytes
+ * into a reusable buffer, which is written to the channel when full, so it allocates nothing.
+ * Not thread-safe.
+ */
+public class SolutionWriter implements Consumer<int[]>, Flushable, AutoCloseable {
+
+    public enum Format { CSV, JSON_LINES }
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 << 10;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * the bytes of each cell, by variable and value index
+     */
+    private final byte[][][] cells;
+    /**
+     * value - offset of each variable -> value index, -1 for the values out of the domain
+     */
+    private final int[][] indices;
+    private final int[] offsets;
+
+    @Getter
+    private long nbSolutions = 0;
+    @Getter
+    private long nbBytes = 0;
+
+    public SolutionWriter(@NonNull List<VariableDefinition> variables, @NonNull Format format,
+                          @NonNull WritableByteChannel channel) {
+        this(variables, format, channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public static SolutionWriter of(@NonNull KnowledgeBaseDefinition definition, @NonNull Format format,
+                                    @NonNull WritableByteChannel channel) {
+        return new SolutionWriter(definition.getVariables(), format, channel);
+    }
+
+    /**
+     * Writes the CSV header into the buffer, if the format is CSV.
+     */
+    public SolutionWriter(@NonNull List<VariableDefinition> variables, @NonNull Format format,
+                          @NonNull WritableByteChannel channel, int bufferSize) {
+        checkArgument(!variables.isEmpty(), "There must be at least one variable");
+        this.channel = channel;
+
+        int n = variables.size();
+        cells = new byte[n][][];
+        indices = new int[n][];
+        offsets = new int[n];
+        int maxRow = 0;
+        for (int i = 0; i < n; i++) {
+            VariableDefinition variable = variables.get(i);
+            int[] values = variable.getValues();
+
+            cells[i] = new byte[values.length][];
+            int maxCell = 0;
+            for (int v = 0; v < values.length; v++) {
+                cells[i][v] = cell(format, variable, v, i == 0, i == n - 1).getBytes(StandardCharsets.UTF_8);
+                maxCell = Math.max(maxCell, cells[i][v].length);
+            }
+            maxRow += maxCell;
+
+            int min = Arrays.stream(values).min().orElseThrow();
+            int max = Arrays.stream(values).max().orElseThrow();
+            checkArgument((long) max - min < 1 << 20, "The values of %s are too sparse", variable.getName());
+            offsets[i] = min;
+            indices[i] = new int[max - min + 1];
+            Arrays.fill(indices[i], -1);
+            for (int v = 0; v < values.length; v++) {
+                indices[i][values[v] - min] = v;
+            }
+        }
+
+        byte[] header = format == Format.CSV
+                ? (String.join(",", variables.stream().map(v -> csv(v.getName())).toList()) + "\n")
+                .getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+        buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, Math.max(maxRow, header.length)));
+        buffer.put(header);
+        nbBytes = header.length;
+    }
+
+    /**
+     * Writes a solution, i.e., the values of the variables.
+     * The row is checked before any cell is buffered, an invalid row writes nothing.
+     */
+    public void write(@NonNull int[] row) {
+        checkArgument(row.length == cells.length, "A row must have %s values", cells.length);
+        for (int i = 0; i < row.length; i++) {
+            checkArgument(index(i, row[i]) != -1, "%s is not in the domain of variable %s", row[i], i);
+        }
+        for (int i = 0; i < row.length; i++) {
+            put(cells[i][index(i, row[i])]);
+        }
+        nbSolutions++;
+    }
+
+    /**
+     * @return the index of the value of the variable, -1 if the value is out of its domain
+     */
+    private int index(int var, int value) {
+        int offset = value - offsets[var];
+        return offset >= 0 && offset < indices[var].length ? indices[var][offset] : -1;
+    }
+
+    @Override
+    public void accept(int[] row) {
+        write(row);
+    }
+
+    /**
+     * Writes all solutions of the iterator, e.g., a {@link SolutionIterator} or {@link PackedSolutionStore#scan()}.
+     *
+     * @return the number of solutions written
+     */
+    public long writeAll(@NonNull Iterator<int[]> solutions) {
+        long written = 0;
+        while (solutions.hasNext()) {
+            write(solutions.next());
+            written++;
+        }
+        return written;
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     */
+    @Override
+    public void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Flushes the buffer, the channel is left open.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void put(byte[] bytes) {
+        if (buffer.remaining() < bytes.length) {
+            flush();
+        }
+        buffer.put(bytes);
+        nbBytes += bytes.length;
+    }
+
+    private static String cell(Format format, VariableDefinition variable, int index, boolean first, boolean last) {
+        String label = variable.getLabel(variable.getValues()[index]);
+        if (format == Format.CSV) {
+            return csv(label) + (last ? "\n" : ",");
+        }
+        return (first ? "{" : ",") + json(variable.getName()) + ":" + json(label) + (last ? "}\n" : "");
+    }
+
+    private static String csv(String text) {
+        if (text.indexOf(',') == -1 && text.indexOf('"') == -1 && text.indexOf('\n') == -1 && text.indexOf('\r') == -1) {
+            return text;
+        }
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String json(String text) {
+        StringBuilder json = new StringBuilder(text.length() + 2).append('"');
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+}
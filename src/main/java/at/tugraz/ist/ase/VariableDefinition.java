@@ -0,0 +1,58 @@
+/*
+ * An example for dynamically add/remove constraints
+ *
+ * Copyright (c) 2023
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A variable with its domain and a label for each value, e.g.,
+ * modell with the values 1..5 labeled as limousine, combi, suv, cabrio, van
+ */
+@Value
+@Builder
+public class VariableDefinition {
+    @NonNull String name;
+    @NonNull int[] values;
+    @Singular List<String> labels;
+
+    public IntVar create(@NonNull Model model) {
+        return model.intVar(name, values);
+    }
+
+    public int getDomainSize() {
+        return values.length;
+    }
+
+    /**
+     * @return the index of the value in the domain, -1 if the value is not in the domain
+     */
+    public int indexOf(int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String getLabel(int value) {
+        int index = indexOf(value);
+        checkArgument(index != -1, "%s is not in the domain of %s", value, name);
+        return labels.isEmpty() ? String.valueOf(value) : labels.get(index);
+    }
+}